@@ -0,0 +1,60 @@
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+// Class: AppendBenchmark
+// Description: Measures saving new transactions through the append log, waiting for each save
+// the way the menu does. The concurrent variant shows how many writers one group commit serves.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppendBenchmark {
+    @Param({"never", "always"})
+    public String fsync;
+
+    private Path directory;
+    private Transaction transaction;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkFiles.createDirectory();
+        FinancialTracker.resetLedger();
+        FinancialTracker.openAppendLog(directory.resolve("transactions.csv").toString(), fsync);
+        transaction = new Transaction(LedgerGenerator.LAST_DAY, LocalTime.of(12, 30, 15),
+                "Coffee", "Starbucks", -475);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FinancialTracker.closeAppendLog();
+        BenchmarkFiles.delete(directory);
+    }
+
+
+    // Benchmark: saveTransaction
+    // Description: One writer saving a transaction and waiting until it is durable.
+    @Benchmark
+    public void saveTransaction() {
+        FinancialTracker.saveTransaction(transaction).join();
+    }
+
+
+    // Benchmark: saveTransactionConcurrent
+    // Description: Four writers saving at once, so their lines can share a write and sync.
+    @Benchmark
+    @Threads(4)
+    public void saveTransactionConcurrent() {
+        FinancialTracker.saveTransaction(transaction).join();
+    }
+}
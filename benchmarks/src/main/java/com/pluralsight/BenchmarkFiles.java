@@ -0,0 +1,33 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+
+// Class: BenchmarkFiles
+// Description: Temporary directories for generated ledgers and append logs.
+public class BenchmarkFiles {
+
+    // Method: createDirectory
+    // Description: Creates an empty temporary directory.
+    public static Path createDirectory() throws IOException {
+        return Files.createTempDirectory("ledger-benchmark");
+    }
+
+
+    // Method: delete
+    // Description: Deletes a temporary directory and everything in it.
+    public static void delete(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+// Class: LedgerBenchmark
+// Description: Measures the concurrent ledger directly: striped appends from one and from four
+// writer threads, and reports reading published views while other threads append and publish.
+// The ledger starts from a generated ledger again at every iteration so it does not grow without end.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LedgerBenchmark {
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"50"})
+    public int vendors;
+
+    private Path directory;
+    private Path file;
+    private Ledger ledger;
+    private Transaction transaction;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkFiles.createDirectory();
+        file = directory.resolve("transactions.csv");
+        new LedgerGenerator(rows, vendors).write(file);
+        // Dated after every generated row, so new rows are appended at the end of the date index
+        transaction = new Transaction(LedgerGenerator.LAST_DAY.plusDays(1), LocalTime.of(12, 30, 15),
+                "Coffee", "Starbucks", -475);
+    }
+
+
+    @Setup(Level.Iteration)
+    public void loadLedger() throws IOException {
+        ledger = new Ledger();
+        try (InputStream in = Files.newInputStream(file)) {
+            new TransactionParser().parse(in, ledger.store());
+        }
+        ledger.indexLoadedRows();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(directory);
+    }
+
+
+    // Benchmark: append
+    // Description: One writer appending to its stripe.
+    @Benchmark
+    public void append() {
+        ledger.append(transaction);
+    }
+
+
+    // Benchmark: appendConcurrent
+    // Description: Four writers appending at once, each to its own stripe.
+    @Benchmark
+    @Threads(4)
+    public void appendConcurrent() {
+        ledger.append(transaction);
+    }
+
+
+    // Benchmark: appendAndPublish
+    // Description: Four writers that each make their row visible before going on, sharing publishes.
+    @Benchmark
+    @Threads(4)
+    public void appendAndPublish() {
+        ledger.append(transaction);
+        ledger.publish();
+    }
+
+
+    // Benchmark: readWhileWriting (writer side)
+    // Description: Two threads appending and publishing while the reader side runs.
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(2)
+    public void write() {
+        ledger.append(transaction);
+        ledger.publish();
+    }
+
+
+    // Benchmark: readWhileWriting (reader side)
+    // Description: Two threads reading the last month of the latest view with its totals, without locks.
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(2)
+    public void read(Blackhole blackhole) {
+        LedgerView view = ledger.view();
+        DateIndex dateIndex = view.getDateIndex();
+        TransactionStore store = view.getStore();
+        int from = dateIndex.lowerBound((int) LedgerGenerator.LAST_DAY.withDayOfMonth(1).toEpochDay());
+        long cents = 0;
+        for (int i = from; i < dateIndex.size(); i++) {
+            cents += store.getAmountCents(dateIndex.rowAt(i));
+        }
+        blackhole.consume(cents);
+        blackhole.consume(view.getRollup().between(LedgerGenerator.LAST_DAY.withDayOfMonth(1), LedgerGenerator.LAST_DAY));
+    }
+}
@@ -0,0 +1,123 @@
+package com.pluralsight;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Random;
+
+
+// Class: LedgerGenerator
+// Description: Writes synthetic ledgers in the transactions.csv pipe format for the benchmarks.
+// Rows run in date order over the days before LAST_DAY, like a ledger that was entered day by day,
+// with a configurable number of rows, distinct vendors and distinct descriptions.
+public class LedgerGenerator {
+    // The last day of every generated ledger, so date range benchmarks hit the same rows on every run
+    static final LocalDate LAST_DAY = LocalDate.of(2025, 12, 31);
+
+    private static final String[] VENDOR_NAMES = {
+            "Amazon", "Walmart", "Target", "Costco", "Starbucks", "Shell", "Netflix", "Uber",
+            "Spotify", "Whole Foods", "Home Depot", "Best Buy", "Chipotle", "Comcast", "Delta", "Employer Inc"
+    };
+    private static final String[] DESCRIPTIONS = {
+            "Groceries", "Coffee", "Fuel", "Rent payment", "Salary", "Streaming subscription", "Ride home",
+            "Electronics", "Invoice payment", "Refund", "Dinner", "Hardware", "Internet bill", "Flight"
+    };
+
+    private final int rows;
+    private final int vendors;
+    private final int descriptions;
+    private final int days;
+    private final long seed;
+
+
+    // Constructor: LedgerGenerator
+    // Description: Creates a generator for the given number of rows and distinct vendors,
+    // spread over three years with a fixed seed.
+    public LedgerGenerator(int rows, int vendors) {
+        this(rows, vendors, 200, 3 * 365, 42);
+    }
+
+
+    // Constructor: LedgerGenerator
+    // Description: Creates a generator with every setting given.
+    public LedgerGenerator(int rows, int vendors, int descriptions, int days, long seed) {
+        this.rows = rows;
+        this.vendors = vendors;
+        this.descriptions = descriptions;
+        this.days = days;
+        this.seed = seed;
+    }
+
+
+    // Method: main
+    // Description: Writes a ledger from the command line: <rows> <vendors> <file>.
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("Usage: LedgerGenerator <rows> <vendors> <file>");
+            return;
+        }
+        Path path = Paths.get(args[2]);
+        new LedgerGenerator(Integer.parseInt(args[0]), Integer.parseInt(args[1])).write(path);
+        System.out.println("Wrote " + args[0] + " transactions to " + path);
+    }
+
+
+    // Method: write
+    // Description: Writes the ledger to a file, replacing it if it exists.
+    public void write(Path path) throws IOException {
+        Random random = new Random(seed);
+        LocalDate firstDay = LAST_DAY.minusDays(days - 1);
+        long totalSeconds = (long) days * 86400;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder(96);
+            for (int i = 0; i < rows; i++) {
+                // Spread the rows evenly over the period so dates and times only go forward
+                long second = totalSeconds * i / rows;
+                LocalDate date = firstDay.plusDays(second / 86400);
+                int secondOfDay = (int) (second % 86400);
+
+                // Roughly one row in ten is a deposit
+                long cents = random.nextInt(10) == 0
+                        ? 50_000 + random.nextInt(250_000)
+                        : -(100 + random.nextInt(30_000));
+
+                line.setLength(0);
+                line.append(date).append('|');
+                appendTwoDigits(line, secondOfDay / 3600).append(':');
+                appendTwoDigits(line, secondOfDay / 60 % 60).append(':');
+                appendTwoDigits(line, secondOfDay % 60).append('|');
+                line.append(name(DESCRIPTIONS, random.nextInt(descriptions))).append('|');
+                line.append(name(VENDOR_NAMES, random.nextInt(vendors))).append('|');
+                if (cents < 0) {
+                    line.append('-');
+                }
+                line.append(Math.abs(cents) / 100).append('.');
+                appendTwoDigits(line, (int) (Math.abs(cents) % 100)).append('\n');
+                writer.append(line);
+            }
+        }
+    }
+
+
+    // Method: name
+    // Description: Returns the name for an id, numbering the names again once the list runs out.
+    private static String name(String[] names, int id) {
+        String name = names[id % names.length];
+        return id < names.length ? name : name + " " + (id / names.length);
+    }
+
+
+    // Method: appendTwoDigits
+    // Description: Appends a number from 0 to 99 with a leading zero.
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+        if (value < 10) {
+            builder.append('0');
+        }
+        return builder.append(value);
+    }
+}
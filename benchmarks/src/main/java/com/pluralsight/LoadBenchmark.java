@@ -0,0 +1,66 @@
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+
+// Class: LoadBenchmark
+// Description: Measures loading a generated transactions.csv file into an empty ledger,
+// with the streaming parser and with the memory-mapped parallel loader.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"50", "5000"})
+    public int vendors;
+
+    private Path directory;
+    private String fileName;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkFiles.createDirectory();
+        Path ledger = directory.resolve("transactions.csv");
+        new LedgerGenerator(rows, vendors).write(ledger);
+        fileName = ledger.toString();
+        QuietConsole.mute();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        QuietConsole.restore();
+        FinancialTracker.resetLedger();
+        BenchmarkFiles.delete(directory);
+    }
+
+
+    // Benchmark: loadTransactions
+    // Description: Parses the whole file with the single-threaded parser and builds the indexes.
+    @Benchmark
+    public int loadTransactions() {
+        FinancialTracker.resetLedger();
+        FinancialTracker.loadTransactions(fileName);
+        return FinancialTracker.getTransactionCount();
+    }
+
+
+    // Benchmark: loadTransactionsParallel
+    // Description: Maps the file and parses it in chunks on the common pool, then builds the indexes.
+    @Benchmark
+    public int loadTransactionsParallel() {
+        FinancialTracker.resetLedger();
+        FinancialTracker.loadTransactionsParallel(fileName);
+        return FinancialTracker.getTransactionCount();
+    }
+}
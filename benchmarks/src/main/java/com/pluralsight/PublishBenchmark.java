@@ -0,0 +1,72 @@
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+// Class: PublishBenchmark
+// Description: Measures one writer appending a single transaction and publishing it, the way a menu
+// deposit or an HTTP POST does, over ledgers of growing size. Every row has a new description, so
+// the text indexes gain a value on each publish. The time per publish should stay the same
+// whatever the size of the ledger.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"5000"})
+    public int vendors;
+
+    private Path directory;
+    private Path file;
+    private Ledger ledger;
+    private int next;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkFiles.createDirectory();
+        file = directory.resolve("transactions.csv");
+        // Mostly distinct descriptions, like free-text bank memos
+        new LedgerGenerator(rows, vendors, rows, 3 * 365, 42).write(file);
+    }
+
+
+    @Setup(Level.Iteration)
+    public void loadLedger() throws IOException {
+        ledger = new Ledger();
+        try (InputStream in = Files.newInputStream(file)) {
+            new TransactionParser().parse(in, ledger.store());
+        }
+        ledger.indexLoadedRows();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(directory);
+    }
+
+
+    // Benchmark: appendAndPublishOne
+    // Description: Appends one transaction dated after every generated row and publishes it.
+    @Benchmark
+    public LedgerView appendAndPublishOne() {
+        next++;
+        ledger.append(new Transaction(LedgerGenerator.LAST_DAY.plusDays(1), LocalTime.of(12, 30, 15),
+                "Transfer ref " + next, "Vendor " + next % vendors, next % 2 == 0 ? 2500 : -475));
+        ledger.publish();
+        return ledger.view();
+    }
+}
@@ -0,0 +1,131 @@
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+
+// Class: QueryBenchmark
+// Description: Measures the reports, the custom search and the full ledger view over a loaded
+// generated ledger. Each one prints its rows to a discarding System.out, so formatting is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final LocalDate LAST_DAY = LedgerGenerator.LAST_DAY;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"50", "5000"})
+    public int vendors;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path directory = BenchmarkFiles.createDirectory();
+        try {
+            Path ledger = directory.resolve("transactions.csv");
+            new LedgerGenerator(rows, vendors).write(ledger);
+            QuietConsole.mute();
+            FinancialTracker.resetLedger();
+            FinancialTracker.loadTransactions(ledger.toString());
+        } finally {
+            BenchmarkFiles.delete(directory);
+        }
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        QuietConsole.restore();
+        FinancialTracker.resetLedger();
+    }
+
+
+    // Benchmark: filterTransactionsByDateMonth
+    // Description: The Month To Date report on the last month of the ledger.
+    @Benchmark
+    public void filterTransactionsByDateMonth() {
+        FinancialTracker.filterTransactionsByDate(LAST_DAY.withDayOfMonth(1), LAST_DAY);
+    }
+
+
+    // Benchmark: filterTransactionsByDateYear
+    // Description: The Year To Date report on the last year of the ledger.
+    @Benchmark
+    public void filterTransactionsByDateYear() {
+        FinancialTracker.filterTransactionsByDate(LAST_DAY.withDayOfYear(1), LAST_DAY);
+    }
+
+
+    // Benchmark: filterTransactionsByVendor
+    // Description: The Search by Vendor report for one vendor, typed in a different case.
+    @Benchmark
+    public void filterTransactionsByVendor() {
+        FinancialTracker.filterTransactionsByVendor("starbucks");
+    }
+
+
+    // Benchmark: customSearchDateAndDescription
+    // Description: A custom search for a description inside one quarter.
+    @Benchmark
+    public void customSearchDateAndDescription() {
+        FinancialTracker.customSearch(new Scanner("2025-07-01\n2025-09-30\ncoffee\n\n\n\n\n\n"));
+    }
+
+
+    // Benchmark: customSearchVendorText
+    // Description: A custom search for part of a vendor name over every date.
+    @Benchmark
+    public void customSearchVendorText() {
+        FinancialTracker.customSearch(new Scanner("\n\n\nfoods\n\n\n\n\n"));
+    }
+
+
+    // Benchmark: customSearchAmount
+    // Description: A custom search for one amount over every date.
+    @Benchmark
+    public void customSearchAmount() {
+        FinancialTracker.customSearch(new Scanner("\n\n\n\n-4.75\n\n\n\n"));
+    }
+
+
+    // Benchmark: customSearchAmountRange
+    // Description: A custom search for payments between $100 and $250 inside one quarter.
+    @Benchmark
+    public void customSearchAmountRange() {
+        FinancialTracker.customSearch(new Scanner("2025-07-01\n2025-09-30\n\n\n\n-250\n-100\n\n"));
+    }
+
+
+    // Benchmark: customSearchLargestDeposits
+    // Description: A custom search for the 100 largest deposits of the last year.
+    @Benchmark
+    public void customSearchLargestDeposits() {
+        FinancialTracker.customSearch(new Scanner("2025-01-01\n2025-12-31\n\n\n\n0.01\n\n100\n"));
+    }
+
+
+    // Benchmark: displayLedger
+    // Description: Renders the whole ledger, newest first.
+    @Benchmark
+    public void displayLedger() {
+        FinancialTracker.displayLedger(null, Integer.MAX_VALUE);
+    }
+
+
+    // Benchmark: displayLedgerFirstPage
+    // Description: Opens the paged "All" view and stops after the first page.
+    @Benchmark
+    public void displayLedgerFirstPage() {
+        FinancialTracker.displayLedger(new Scanner("Q\n"), 50);
+    }
+}
@@ -0,0 +1,33 @@
+package com.pluralsight;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+
+// Class: QuietConsole
+// Description: Sends System.out to a stream that drops everything while a benchmark runs.
+// The tracker still formats and encodes every line it prints, so rendering stays part of the
+// measurement, but the terminal does not.
+public class QuietConsole {
+    private static PrintStream console;
+
+
+    // Method: mute
+    // Description: Replaces System.out with a discarding stream, remembering the real one.
+    public static synchronized void mute() {
+        if (console == null) {
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+    }
+
+
+    // Method: restore
+    // Description: Puts the real System.out back.
+    public static synchronized void restore() {
+        if (console != null) {
+            System.setOut(console);
+            console = null;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.pluralsight;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+
+// Class: AmountIndex
+// Description: Keeps the row numbers of a TransactionStore sorted by amount, so an amount range is
+// found with binary searches and the largest amounts can be read first without visiting other rows.
+// New amounts fall anywhere in the order, so each batch becomes its own small sorted run on a stack
+// of runs, largest at the bottom. The top run is merged into the one below only while it is at least
+// half its size, so the stack holds O(log n) runs whose sizes more than double from top to bottom,
+// and a row is copied O(log n) times in all instead of once per publish.
+// Runs are never changed once built, which lets snapshot() share them with readers.
+public class AmountIndex {
+    private static final Run[] NO_RUNS = new Run[0];
+
+    private final TransactionStore store;
+
+    // Sorted runs, largest first; the array is replaced, never changed, when a run is added or merged
+    private Run[] runs = NO_RUNS;
+    private int size;
+
+
+    // Constructor: AmountIndex
+    // Description: Creates an empty index over the given store.
+    public AmountIndex(TransactionStore store) {
+        this.store = store;
+    }
+
+
+    // Constructor: AmountIndex
+    // Description: Creates a read-only view of another index, sharing its runs.
+    private AmountIndex(AmountIndex source, TransactionStore store) {
+        this.store = store;
+        this.runs = source.runs;
+        this.size = source.size;
+    }
+
+
+    // Method: snapshot
+    // Description: Returns a read-only view of the index as it is now, over a snapshot of its store.
+    public AmountIndex snapshot(TransactionStore storeSnapshot) {
+        return new AmountIndex(this, storeSnapshot);
+    }
+
+
+    // Method: rebuild
+    // Description: Re-indexes every row of the store in one sort, used after a bulk load.
+    public void rebuild() {
+        int count = store.size();
+        long[] sortedAmounts = new long[count];
+        int[] sortedRows = new int[count];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = 0; row < count; row++) {
+            min = Math.min(min, store.getAmountCents(row));
+            max = Math.max(max, store.getAmountCents(row));
+        }
+
+        if (count > 0 && max - min < (1L << 32)) {
+            // Pack (amount above the smallest, row) into one long so a primitive sort orders both
+            long[] packed = new long[count];
+            for (int row = 0; row < count; row++) {
+                packed[row] = ((store.getAmountCents(row) - min) << 31) | row;
+            }
+            Arrays.parallelSort(packed);
+            for (int i = 0; i < count; i++) {
+                sortedRows[i] = (int) (packed[i] & Integer.MAX_VALUE);
+                sortedAmounts[i] = store.getAmountCents(sortedRows[i]);
+            }
+        } else {
+            // Amounts more than $42 million apart: fall back to a comparator sort
+            Integer[] boxed = new Integer[count];
+            for (int row = 0; row < count; row++) {
+                boxed[row] = row;
+            }
+            Arrays.sort(boxed, (a, b) -> Long.compare(store.getAmountCents(a), store.getAmountCents(b)));
+            for (int i = 0; i < count; i++) {
+                sortedRows[i] = boxed[i];
+                sortedAmounts[i] = store.getAmountCents(boxed[i]);
+            }
+        }
+        runs = count == 0 ? NO_RUNS : new Run[]{new Run(sortedAmounts, sortedRows)};
+        size = count;
+    }
+
+
+    // Method: restore
+    // Description: Restores the index from rows already in amount order, as saved in a snapshot.
+    void restore(int[] order, int count) {
+        long[] amounts = new long[count];
+        for (int i = 0; i < count; i++) {
+            amounts[i] = store.getAmountCents(order[i]);
+        }
+        runs = count == 0 ? NO_RUNS : new Run[]{new Run(amounts, Arrays.copyOf(order, count))};
+        size = count;
+    }
+
+
+    // Method: order
+    // Description: Returns every indexed row in amount order, for saving the index in a snapshot.
+    // The runs are merged from the smallest up, so this copies each row about twice.
+    int[] order() {
+        if (runs.length == 0) {
+            return new int[0];
+        }
+        Run all = runs[runs.length - 1];
+        for (int r = runs.length - 2; r >= 0; r--) {
+            all = runs[r].merge(all);
+        }
+        return all.rows;
+    }
+
+
+    // Method: addAll
+    // Description: Adds a batch of new rows as a new run on top of the stack, then merges the top
+    // run into the one below while it is at least half that run's size. A one-row batch therefore
+    // only copies runs of a similar size, not the whole recent part of the index.
+    public void addAll(IntList newRows) {
+        int count = newRows.size();
+        if (count == 0) {
+            return;
+        }
+        // A batch of every row past the indexed ones that is at least as large as the index,
+        // such as a bulk load, is cheaper to index with one primitive sort of everything
+        if (count >= size && count == store.size() - size && isTail(newRows)) {
+            rebuild();
+            return;
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = newRows.get(i);
+        }
+        Arrays.sort(order, this::compareRows);
+        long[] batchAmounts = new long[count];
+        int[] batchRows = new int[count];
+        for (int i = 0; i < count; i++) {
+            batchRows[i] = order[i];
+            batchAmounts[i] = store.getAmountCents(order[i]);
+        }
+
+        Run top = new Run(batchAmounts, batchRows);
+        int depth = runs.length;
+        while (depth > 0 && top.rows.length * 2 >= runs[depth - 1].rows.length) {
+            top = runs[--depth].merge(top);
+        }
+        Run[] newRuns = Arrays.copyOf(runs, depth + 1);
+        newRuns[depth] = top;
+        runs = newRuns;
+        size += count;
+    }
+
+
+    // Method: isTail
+    // Description: Returns whether the rows are exactly the store's rows past the indexed ones, in order.
+    private boolean isTail(IntList newRows) {
+        for (int i = 0; i < newRows.size(); i++) {
+            if (newRows.get(i) != size + i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // Method: size
+    // Description: Returns the number of indexed rows.
+    public int size() {
+        return size;
+    }
+
+
+    // Method: count
+    // Description: Returns how many rows have an amount from minCents to maxCents, in O(log^2 n).
+    public int count(long minCents, long maxCents) {
+        if (minCents > maxCents) {
+            return 0;
+        }
+        int count = 0;
+        for (Run run : runs) {
+            count += run.upperBound(maxCents) - run.lowerBound(minCents);
+        }
+        return count;
+    }
+
+
+    // Method: rows
+    // Description: Returns the rows with an amount from minCents to maxCents, smallest amount first.
+    // The matching part of each run is merged in from the smallest run up; run sizes more than
+    // double down the stack, so this copies each result about twice.
+    public IntList rows(long minCents, long maxCents) {
+        if (minCents > maxCents || runs.length == 0) {
+            return new IntList();
+        }
+        long[] amounts = new long[0];
+        int[] rows = new int[0];
+        for (int r = runs.length - 1; r >= 0; r--) {
+            Run run = runs[r];
+            int start = run.lowerBound(minCents);
+            int end = run.upperBound(maxCents);
+            long[] merged = new long[amounts.length + end - start];
+            int[] mergedRows = new int[merged.length];
+            int i = 0;
+            int j = start;
+            for (int k = 0; k < merged.length; k++) {
+                if (j == end || (i < rows.length && compare(amounts[i], rows[i], run.amounts[j], run.rows[j]) < 0)) {
+                    merged[k] = amounts[i];
+                    mergedRows[k] = rows[i++];
+                } else {
+                    merged[k] = run.amounts[j];
+                    mergedRows[k] = run.rows[j++];
+                }
+            }
+            amounts = merged;
+            rows = mergedRows;
+        }
+        return rows.length == 0 ? new IntList() : new IntList(rows, rows.length);
+    }
+
+
+    // Method: largest
+    // Description: Walks the rows with an amount from minCents to maxCents from the largest amount
+    // (either sign) down, and returns the first limit rows the filter accepts.
+    // Only the rows it walks past are visited, so a top-K query stops as soon as it has K rows.
+    public IntList largest(long minCents, long maxCents, int limit, IntPredicate filter) {
+        IntList result = new IntList(Math.max(Math.min(limit, 1024), 1));
+        if (minCents > maxCents) {
+            return result;
+        }
+        // Each run is narrowed from both ends: the low end holds the largest payments,
+        // the high end the largest deposits
+        Run[] runs = this.runs;
+        int[] low = new int[runs.length];
+        int[] high = new int[runs.length];
+        for (int r = 0; r < runs.length; r++) {
+            low[r] = runs[r].lowerBound(minCents);
+            high[r] = runs[r].upperBound(maxCents);
+        }
+        while (result.size() < limit) {
+            // The largest remaining amount at either end of any run
+            int best = -1;
+            boolean bestHigh = false;
+            long bestSize = -1;
+            for (int r = 0; r < runs.length; r++) {
+                if (low[r] == high[r]) {
+                    continue;
+                }
+                long highAmount = runs[r].amounts[high[r] - 1];
+                long lowAmount = runs[r].amounts[low[r]];
+                boolean useHigh = Math.abs(highAmount) >= Math.abs(lowAmount);
+                long amount = useHigh ? highAmount : lowAmount;
+                if (Math.abs(amount) > bestSize || (Math.abs(amount) == bestSize && useHigh && !bestHigh)) {
+                    best = r;
+                    bestHigh = useHigh;
+                    bestSize = Math.abs(amount);
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            int row = bestHigh ? runs[best].rows[--high[best]] : runs[best].rows[low[best]++];
+            if (filter.test(row)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+
+    // Method: largest
+    // Description: Returns at most limit of the given rows with the largest amounts (either sign),
+    // largest first. Keeps only limit rows in a heap, so it is cheap even for many rows.
+    public static IntList largest(TransactionStore store, IntList rows, int limit) {
+        int[] heap = new int[Math.min(limit, rows.size())];
+        int size = 0;
+        // A min-heap on size: the root is the smallest of the rows kept so far
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            if (size < heap.length) {
+                heap[size] = row;
+                siftUp(store, heap, size++);
+            } else if (size > 0 && compareLargest(store, row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(store, heap, size);
+            }
+        }
+        return sortLargestFirst(store, new IntList(heap, size));
+    }
+
+
+    // Method: sortLargestFirst
+    // Description: Sorts rows by the size of their amount, largest first; deposits come before
+    // payments of the same size and equal amounts stay in row order.
+    public static IntList sortLargestFirst(TransactionStore store, IntList rows) {
+        Integer[] boxed = new Integer[rows.size()];
+        for (int i = 0; i < boxed.length; i++) {
+            boxed[i] = rows.get(i);
+        }
+        Arrays.sort(boxed, (a, b) -> compareLargest(store, a, b));
+        IntList sorted = new IntList(Math.max(boxed.length, 1));
+        for (int row : boxed) {
+            sorted.add(row);
+        }
+        return sorted;
+    }
+
+
+    // Method: compareLargest
+    // Description: Orders rows largest amount first, as described in sortLargestFirst.
+    private static int compareLargest(TransactionStore store, int a, int b) {
+        long amountA = store.getAmountCents(a);
+        long amountB = store.getAmountCents(b);
+        int bySize = Long.compare(Math.abs(amountB), Math.abs(amountA));
+        if (bySize != 0) {
+            return bySize;
+        }
+        int bySign = Long.compare(amountB, amountA);
+        return bySign != 0 ? bySign : Integer.compare(a, b);
+    }
+
+
+    // Method: siftUp
+    // Description: Moves a new heap entry up until its parent is smaller.
+    private static void siftUp(TransactionStore store, int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (compareLargest(store, heap[index], heap[parent]) <= 0) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[parent];
+            heap[parent] = swap;
+            index = parent;
+        }
+    }
+
+
+    // Method: siftDown
+    // Description: Moves the root down until both children are larger.
+    private static void siftDown(TransactionStore store, int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (compareLargest(store, heap[child], heap[smallest]) > 0) {
+                    smallest = child;
+                }
+            }
+            if (smallest == index) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+            index = smallest;
+        }
+    }
+
+
+    // Method: compareRows
+    // Description: Orders two rows of the store by amount and then by row number.
+    private int compareRows(int a, int b) {
+        return compare(store.getAmountCents(a), a, store.getAmountCents(b), b);
+    }
+
+
+    // Method: compare
+    // Description: Orders (amount, row) pairs by amount and then by row number.
+    private static int compare(long amountA, int rowA, long amountB, int rowB) {
+        int byAmount = Long.compare(amountA, amountB);
+        return byAmount != 0 ? byAmount : Integer.compare(rowA, rowB);
+    }
+
+
+    // Class: Run
+    // Description: Amounts and the matching row numbers, sorted by amount and then by row.
+    // A run is never changed once built; merging builds a new one.
+    private static class Run {
+        private final long[] amounts;
+        private final int[] rows;
+
+        private Run(long[] amounts, int[] rows) {
+            this.amounts = amounts;
+            this.rows = rows;
+        }
+
+
+        // Method: merge
+        // Description: Returns a new run holding the entries of this run and another.
+        private Run merge(Run other) {
+            long[] mergedAmounts = new long[rows.length + other.rows.length];
+            int[] mergedRows = new int[mergedAmounts.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < mergedRows.length; k++) {
+                if (j == other.rows.length || (i < rows.length && compare(i, other, j) < 0)) {
+                    mergedAmounts[k] = amounts[i];
+                    mergedRows[k] = rows[i++];
+                } else {
+                    mergedAmounts[k] = other.amounts[j];
+                    mergedRows[k] = other.rows[j++];
+                }
+            }
+            return new Run(mergedAmounts, mergedRows);
+        }
+
+
+        // Method: compare
+        // Description: Orders the entry at position i of this run against the entry at position j of another.
+        private int compare(int i, Run other, int j) {
+            return AmountIndex.compare(amounts[i], rows[i], other.amounts[j], other.rows[j]);
+        }
+
+
+        // Method: lowerBound
+        // Description: Binary search for the first position whose amount is at least the given amount.
+        private int lowerBound(long cents) {
+            int low = 0;
+            int high = amounts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (amounts[mid] < cents) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+
+        // Method: upperBound
+        // Description: Binary search for the first position whose amount is more than the given amount.
+        private int upperBound(long cents) {
+            return cents == Long.MAX_VALUE ? amounts.length : lowerBound(cents + 1);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+
+// Class: AppendLog
+// Description: A long-lived append-only writer for the transactions file.
+// Callers hand in lines from any thread; one writer thread collects everything that is waiting,
+// writes it with a single channel write (a group commit) and then syncs according to the SyncPolicy.
+// Each caller gets a future that completes once its line is as durable as the policy promises.
+// A group commit is written while holding the log's lock. A CsvFollower of the same file takes the
+// lines written so far (takeWrites) and reads the file size under that lock, so it can tell the lines
+// this log wrote from lines other programs appended.
+public class AppendLog implements AutoCloseable {
+
+    // Enum: SyncPolicy
+    // Description: When the writer forces written lines to disk.
+    public enum SyncPolicy {
+        // fsync after every group commit; futures complete once the data is on disk
+        ALWAYS,
+        // fsync at most once per interval; futures complete at the next fsync
+        INTERVAL,
+        // never fsync; futures complete once the OS has accepted the write
+        NEVER
+    }
+
+    private static final byte NEWLINE = '\n';
+    private static final Metrics.Histogram COMMIT = Metrics.histogram("tracker_append_log_commit_seconds", "",
+            "Time for the append log to write one group commit, including any fsync");
+    private static final Metrics.Counter BYTES = Metrics.counter("tracker_append_log_bytes_total", "",
+            "Bytes written by the append logs");
+    // Queued by close() to wake the writer; never written
+    private static final Entry WAKE_UP = new Entry(new byte[0]);
+
+    private final FileChannel channel;
+    private final SyncPolicy policy;
+    private final long intervalNanos;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Only touched by the writer thread
+    private final List<Entry> awaitingSync = new ArrayList<>();
+    private long lastSyncNanos = System.nanoTime();
+    private volatile long commitCount;
+    private volatile long bytesWritten;
+    // Lines written since trackWrites(), in file order, until takeWrites() hands them on;
+    // null while no one follows the file. Guarded by this
+    private ArrayDeque<byte[]> writes;
+
+
+    // Constructor: AppendLog
+    // Description: Opens (or creates) the file for appending and starts the writer thread.
+    // intervalMillis is only used by the INTERVAL policy, and must then be positive.
+    public AppendLog(Path path, SyncPolicy policy, long intervalMillis) throws IOException {
+        if (policy == SyncPolicy.INTERVAL && intervalMillis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive: " + intervalMillis + " ms");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.policy = policy;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        terminateLastLine(path);
+
+        writer = new Thread(this::run, "append-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    // Method: append
+    // Description: Queues one line, or several lines joined by newlines, without the final newline.
+    // Returns a future for its durability. Several lines queued together are written as a unit.
+    public CompletableFuture<Void> append(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        Entry entry = new Entry(bytes);
+        if (closed) {
+            entry.future.completeExceptionally(new IOException("Append log is closed"));
+            return entry.future;
+        }
+        queue.add(entry);
+        return entry.future;
+    }
+
+
+    // Method: close
+    // Description: Writes and syncs everything still queued, then closes the file.
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        // Interrupting the writer would close the channel mid-write, so wake it with a marker instead
+        queue.add(WAKE_UP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lines that raced with close() never reached the writer
+        List<Entry> late = new ArrayList<>();
+        queue.drainTo(late);
+        late.remove(WAKE_UP);
+        fail(late, new IOException("Append log is closed"));
+        channel.close();
+    }
+
+
+    // Method: trackWrites
+    // Description: Starts keeping the lines this log writes for takeWrites(), and returns how many bytes
+    // it has written before that, so a follower can start reading right after them.
+    public synchronized long trackWrites() {
+        writes = new ArrayDeque<>();
+        return bytesWritten;
+    }
+
+
+    // Method: takeWrites
+    // Description: Returns the entries written since the last call, each one or more lines ending in a
+    // newline, in the order they are in the file. Call trackWrites() first.
+    public synchronized List<byte[]> takeWrites() {
+        List<byte[]> taken = new ArrayList<>(writes);
+        writes.clear();
+        return taken;
+    }
+
+
+    // Method: getCommitCount
+    // Description: Returns how many group commits have been written.
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+
+    // Method: getBytesWritten
+    // Description: Returns how many bytes this log has added to the file.
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+
+    // Method: run
+    // Description: Writer thread loop: wait for lines, write them as one batch, sync per policy.
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry first = policy == SyncPolicy.INTERVAL
+                        ? queue.poll(intervalNanos, TimeUnit.NANOSECONDS)
+                        : queue.take();
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(batch);
+            batch.remove(WAKE_UP);
+            commit(batch, closed);
+            batch.clear();
+        }
+        // Sync anything an INTERVAL policy was still holding back
+        commit(batch, true);
+    }
+
+
+    // Method: commit
+    // Description: Writes a batch in one gathering write and completes the futures the policy allows.
+    private void commit(List<Entry> batch, boolean forceSync) {
+        Metrics.Timer timer = batch.isEmpty() ? null : COMMIT.start();
+        try {
+            if (!batch.isEmpty()) {
+                ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = ByteBuffer.wrap(batch.get(i).bytes);
+                }
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    remaining += buffer.remaining();
+                }
+                synchronized (this) {
+                    while (remaining > 0) {
+                        long written = channel.write(buffers);
+                        remaining -= written;
+                        bytesWritten += written;
+                        BYTES.add(written);
+                    }
+                    if (writes != null) {
+                        for (Entry entry : batch) {
+                            writes.add(entry.bytes);
+                        }
+                    }
+                }
+                commitCount++;
+            }
+
+            switch (policy) {
+                case ALWAYS:
+                    if (!batch.isEmpty()) {
+                        channel.force(false);
+                    }
+                    complete(batch);
+                    break;
+                case NEVER:
+                    complete(batch);
+                    break;
+                case INTERVAL:
+                    awaitingSync.addAll(batch);
+                    if (!awaitingSync.isEmpty() && (forceSync || System.nanoTime() - lastSyncNanos >= intervalNanos)) {
+                        channel.force(false);
+                        lastSyncNanos = System.nanoTime();
+                        complete(awaitingSync);
+                        awaitingSync.clear();
+                    }
+                    break;
+            }
+            if (timer != null) {
+                timer.stop(batch.size());
+            }
+        } catch (IOException e) {
+            fail(batch, e);
+            fail(awaitingSync, e);
+            awaitingSync.clear();
+        }
+    }
+
+
+    // Method: terminateLastLine
+    // Description: Adds a newline if the existing file does not end with one,
+    // so the first appended row does not run into the last row of the file.
+    private void terminateLastLine(Path path) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        // An append-mode channel cannot read, so peek at the last byte with a separate one
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = reader.size();
+            if (size == 0) {
+                return;
+            }
+            reader.read(last, size - 1);
+        }
+        if (last.get(0) != NEWLINE) {
+            bytesWritten += channel.write(ByteBuffer.wrap(new byte[]{NEWLINE}));
+        }
+    }
+
+
+    // Method: complete
+    // Description: Completes the futures of every entry in the list.
+    private static void complete(List<Entry> entries) {
+        for (Entry entry : entries) {
+            entry.future.complete(null);
+        }
+    }
+
+
+    // Method: fail
+    // Description: Fails the futures of every entry in the list with the write error.
+    private static void fail(List<Entry> entries, IOException e) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        for (Entry entry : entries) {
+            entry.future.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+
+    // Class: Entry
+    // Description: One queued line and the future of its caller.
+    private static class Entry {
+        private final byte[] bytes;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Entry(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.pluralsight;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+// Class: BlockFile
+// Description: A compacted, read-only copy of one month of transactions, for history that is rarely read.
+// The rows are sorted by date and time and cut into blocks of BLOCK_ROWS rows; each block holds their
+// transactions.csv lines compressed with Deflater. A directory at the front of the file keeps every
+// block's date range, amount range and a bloom filter of its vendors (a zone map), so opening the file
+// reads only the directory, and a block is decompressed only when a report may need one of its rows.
+// Layout (little-endian):
+//   header (48 bytes): magic, version, block count, row count, directory length, source length,
+//                      source checksum, directory checksum, header checksum
+//   directory: for each block: rows, first day, last day, bloom words, min amount, max amount,
+//              body offset, compressed length, line bytes, body checksum, then the bloom words
+//   bodies: the compressed blocks, one after another
+// The source length and checksum identify the CSV file compacted into this one, so a CSV file that a
+// crash left behind after the block file was moved into place is recognised and not loaded twice.
+public class BlockFile {
+    static final String SUFFIX = ".blk";
+    static final int BLOCK_ROWS = 4096;
+    private static final long MAGIC = 0x314b434f4c425446L; // "FTBLOCK1" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int HEADER_CHECKSUM_OFFSET = 44;
+    private static final int ENTRY_SIZE = 56;
+    // About 1% false positives with 10 bits and 7 hashes per distinct vendor
+    private static final int BLOOM_BITS_PER_VALUE = 10;
+    private static final int BLOOM_HASHES = 7;
+
+    private final Path file;
+    private final int rowCount;
+    private final long sourceLength;
+    private final int sourceChecksum;
+
+    // The directory, by block
+    private final int[] rows;
+    private final int[] firstDays;
+    private final int[] lastDays;
+    private final long[] minCents;
+    private final long[] maxCents;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] lineBytes;
+    private final int[] checksums;
+    private final long[][] blooms;
+
+
+    // Constructor: BlockFile
+    // Description: Creates a block file from its header and directory; use open() or write().
+    private BlockFile(Path file, int blockCount, int rowCount, long sourceLength, int sourceChecksum) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.sourceLength = sourceLength;
+        this.sourceChecksum = sourceChecksum;
+        rows = new int[blockCount];
+        firstDays = new int[blockCount];
+        lastDays = new int[blockCount];
+        minCents = new long[blockCount];
+        maxCents = new long[blockCount];
+        offsets = new long[blockCount];
+        compressedLengths = new int[blockCount];
+        lineBytes = new int[blockCount];
+        checksums = new int[blockCount];
+        blooms = new long[blockCount][];
+    }
+
+
+    // Method: open
+    // Description: Reads the header and the directory of a block file, but none of the blocks.
+    // Throws IOException if the file is damaged.
+    public static BlockFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file.getFileName() + ": block file is truncated");
+            }
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            CRC32C headerChecksum = new CRC32C();
+            headerChecksum.update(header.duplicate().limit(HEADER_CHECKSUM_OFFSET));
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION
+                    || header.getInt(HEADER_CHECKSUM_OFFSET) != (int) headerChecksum.getValue()) {
+                throw new IOException(file.getFileName() + ": block file header is not valid");
+            }
+            int blockCount = header.getInt(12);
+            int directoryLength = header.getInt(20);
+            if (directoryLength < 0 || HEADER_SIZE + (long) directoryLength > channel.size()) {
+                throw new IOException(file.getFileName() + ": block file is truncated");
+            }
+            ByteBuffer directory = read(channel, HEADER_SIZE, directoryLength);
+            CRC32C directoryChecksum = new CRC32C();
+            directoryChecksum.update(directory.duplicate());
+            if (directory.limit() != directoryLength || header.getInt(36) != (int) directoryChecksum.getValue()) {
+                throw new IOException(file.getFileName() + ": block file directory is not valid");
+            }
+
+            BlockFile blocks = new BlockFile(file, blockCount, header.getInt(16), header.getLong(24), header.getInt(32));
+            for (int block = 0; block < blockCount; block++) {
+                blocks.rows[block] = directory.getInt();
+                blocks.firstDays[block] = directory.getInt();
+                blocks.lastDays[block] = directory.getInt();
+                int bloomWords = directory.getInt();
+                blocks.minCents[block] = directory.getLong();
+                blocks.maxCents[block] = directory.getLong();
+                blocks.offsets[block] = directory.getLong();
+                blocks.compressedLengths[block] = directory.getInt();
+                blocks.lineBytes[block] = directory.getInt();
+                blocks.checksums[block] = directory.getInt();
+                directory.getInt();
+                blocks.blooms[block] = new long[bloomWords];
+                directory.asLongBuffer().get(blocks.blooms[block]);
+                directory.position(directory.position() + bloomWords * Long.BYTES);
+            }
+            return blocks;
+        }
+    }
+
+
+    // Method: write
+    // Description: Writes the given rows of a store, in the given order, as a block file that replaces
+    // any file of that name, and returns it opened. sourceLength and sourceChecksum describe the CSV file
+    // the rows came from (-1 and 0 for none). The file is written under a temporary name and then moved
+    // into place, so a crash leaves either the old file or the new one.
+    public static BlockFile write(Path file, TransactionStore store, IntList order, long sourceLength,
+                                  int sourceChecksum) throws IOException {
+        int blockCount = (order.size() + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        BlockFile blocks = new BlockFile(file, blockCount, order.size(), sourceLength, sourceChecksum);
+        byte[][] bodies = new byte[blockCount][];
+        Deflater deflater = new Deflater();
+        try {
+            long offset = HEADER_SIZE;
+            for (int block = 0; block < blockCount; block++) {
+                bodies[block] = blocks.compress(block, store, order, deflater);
+                offset += ENTRY_SIZE + (long) blocks.blooms[block].length * Long.BYTES;
+            }
+            for (int block = 0; block < blockCount; block++) {
+                blocks.offsets[block] = offset;
+                offset += bodies[block].length;
+            }
+        } finally {
+            deflater.end();
+        }
+
+        int directoryLength = 0;
+        for (long[] bloom : blocks.blooms) {
+            directoryLength += ENTRY_SIZE + bloom.length * Long.BYTES;
+        }
+        ByteBuffer directory = ByteBuffer.allocate(directoryLength).order(ByteOrder.LITTLE_ENDIAN);
+        for (int block = 0; block < blockCount; block++) {
+            directory.putInt(blocks.rows[block]);
+            directory.putInt(blocks.firstDays[block]);
+            directory.putInt(blocks.lastDays[block]);
+            directory.putInt(blocks.blooms[block].length);
+            directory.putLong(blocks.minCents[block]);
+            directory.putLong(blocks.maxCents[block]);
+            directory.putLong(blocks.offsets[block]);
+            directory.putInt(blocks.compressedLengths[block]);
+            directory.putInt(blocks.lineBytes[block]);
+            directory.putInt(blocks.checksums[block]);
+            directory.putInt(0);
+            for (long word : blocks.blooms[block]) {
+                directory.putLong(word);
+            }
+        }
+        directory.flip();
+        CRC32C directoryChecksum = new CRC32C();
+        directoryChecksum.update(directory.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(blockCount);
+        header.putInt(order.size());
+        header.putInt(directoryLength);
+        header.putLong(sourceLength);
+        header.putInt(sourceChecksum);
+        header.putInt((int) directoryChecksum.getValue());
+        header.putInt(0);
+        CRC32C headerChecksum = new CRC32C();
+        headerChecksum.update(header.array(), 0, HEADER_CHECKSUM_OFFSET);
+        header.putInt((int) headerChecksum.getValue());
+        header.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, directory);
+            for (byte[] body : bodies) {
+                writeFully(channel, ByteBuffer.wrap(body));
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return blocks;
+    }
+
+
+    // Method: read
+    // Description: Decompresses one block and adds its rows to the store. Safe to call from several
+    // threads at once for different stores. Throws IOException if the block is damaged.
+    public void read(int block, TransactionStore store) throws IOException {
+        ByteBuffer compressed;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            compressed = read(channel, offsets[block], compressedLengths[block]);
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(compressed.duplicate());
+        if (compressed.limit() != compressedLengths[block] || (int) checksum.getValue() != checksums[block]) {
+            throw new IOException(file.getFileName() + ": block " + block + " is damaged");
+        }
+
+        byte[] lines = new byte[lineBytes[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < lines.length && !inflater.finished()) {
+                int inflated = inflater.inflate(lines, length, lines.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != lines.length) {
+                throw new IOException(file.getFileName() + ": block " + block + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(file.getFileName() + ": block " + block + " is damaged", e);
+        } finally {
+            inflater.end();
+        }
+
+        TransactionParser parser = new TransactionParser();
+        parser.parseChunk(ByteBuffer.wrap(lines), store);
+        if (parser.getBadLineCount() > 0 || parser.getRowCount() != rows[block]) {
+            throw new IOException(file.getFileName() + ": block " + block + " is damaged");
+        }
+    }
+
+
+    // Method: mayMatch
+    // Description: Returns whether a block may hold a row within the date range (epoch days, inclusive)
+    // and the amount range (cents, inclusive) and, unless vendor is null, of that vendor (ignoring case).
+    // Only the directory is used: false means no row of the block can match.
+    public boolean mayMatch(int block, int startDay, int endDay, long min, long max, String vendor) {
+        return lastDays[block] >= startDay && firstDays[block] <= endDay
+                && maxCents[block] >= min && minCents[block] <= max
+                && (vendor == null || mightContain(blooms[block], vendor));
+    }
+
+
+    // Method: matchesSource
+    // Description: Returns whether a CSV file is the one this block file was compacted from.
+    public boolean matchesSource(Path csvFile) throws IOException {
+        return sourceLength >= 0 && Files.size(csvFile) == sourceLength && checksum(csvFile) == sourceChecksum;
+    }
+
+
+    // Method: checksum
+    // Description: Returns the CRC32C of a whole file.
+    public static int checksum(Path file) throws IOException {
+        CRC32C checksum = new CRC32C();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                checksum.update(buffer, 0, read);
+            }
+        }
+        return (int) checksum.getValue();
+    }
+
+
+    // Getter Methods
+    // Description: Return the number of blocks and rows, a block's rows and date bounds, and the file size.
+    public int getBlockCount() {
+        return rows.length;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowCount(int block) {
+        return rows[block];
+    }
+
+    public int getFirstDay(int block) {
+        return firstDays[block];
+    }
+
+    public int getLastDay(int block) {
+        return lastDays[block];
+    }
+
+    public long getByteCount() throws IOException {
+        return Files.size(file);
+    }
+
+
+    // Method: compress
+    // Description: Fills in the directory entry of one block and returns its compressed lines.
+    private byte[] compress(int block, TransactionStore store, IntList order, Deflater deflater) {
+        int from = block * BLOCK_ROWS;
+        int to = Math.min(from + BLOCK_ROWS, order.size());
+        StringBuilder text = new StringBuilder((to - from) * 64);
+        Set<String> vendors = new HashSet<>();
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            int row = order.get(i);
+            int day = store.getEpochDay(row);
+            long amount = store.getAmountCents(row);
+            String vendor = store.getVendors().get(store.getVendorId(row));
+            first = Math.min(first, day);
+            last = Math.max(last, day);
+            min = Math.min(min, amount);
+            max = Math.max(max, amount);
+            vendors.add(normalize(vendor));
+            appendLine(text, store, row, vendor);
+        }
+        byte[] lines = text.toString().getBytes(StandardCharsets.UTF_8);
+
+        deflater.reset();
+        deflater.setInput(lines);
+        deflater.finish();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(lines.length / 4 + 64);
+        byte[] buffer = new byte[1 << 16];
+        while (!deflater.finished()) {
+            body.write(buffer, 0, deflater.deflate(buffer));
+        }
+        byte[] compressed = body.toByteArray();
+        CRC32C checksum = new CRC32C();
+        checksum.update(compressed);
+
+        rows[block] = to - from;
+        firstDays[block] = first;
+        lastDays[block] = last;
+        minCents[block] = min;
+        maxCents[block] = max;
+        compressedLengths[block] = compressed.length;
+        lineBytes[block] = lines.length;
+        checksums[block] = (int) checksum.getValue();
+        blooms[block] = bloom(vendors);
+        return compressed;
+    }
+
+
+    // Method: appendLine
+    // Description: Appends a row as one pipe-delimited line in the transactions.csv format.
+    private static void appendLine(StringBuilder text, TransactionStore store, int row, String vendor) {
+        int second = store.getSecondOfDay(row);
+        text.append(LocalDate.ofEpochDay(store.getEpochDay(row))).append('|');
+        appendTwoDigits(text, second / 3600).append(':');
+        appendTwoDigits(text, second / 60 % 60).append(':');
+        appendTwoDigits(text, second % 60).append('|');
+        text.append(store.getDescriptions().get(store.getDescriptionId(row))).append('|')
+                .append(vendor).append('|')
+                .append(Money.toString(store.getAmountCents(row))).append('\n');
+    }
+
+
+    // Method: appendTwoDigits
+    // Description: Appends a number below 100 with a leading zero if needed.
+    private static StringBuilder appendTwoDigits(StringBuilder text, int value) {
+        return text.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+
+    // Method: bloom
+    // Description: Builds a bloom filter of the given (normalized) values, a power of two bits long.
+    private static long[] bloom(Set<String> values) {
+        int bits = Long.SIZE;
+        while (bits < values.size() * BLOOM_BITS_PER_VALUE) {
+            bits *= 2;
+        }
+        long[] bloom = new long[bits / Long.SIZE];
+        for (String value : values) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) & (bits - 1);
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return bloom;
+    }
+
+
+    // Method: mightContain
+    // Description: Returns false if the value is certainly not in the bloom filter.
+    private static boolean mightContain(long[] bloom, String value) {
+        int bits = bloom.length * Long.SIZE;
+        long hash = hash(normalize(value));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (h1 + i * h2) & (bits - 1);
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // Method: hash
+    // Description: 64-bit FNV-1a hash of a string's characters, the same in every JVM.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+
+    // Method: normalize
+    // Description: Vendors match ignoring case, as in the vendor report's TextIndex.exactIds.
+    private static String normalize(String vendor) {
+        return vendor.toLowerCase();
+    }
+
+
+    // Method: read
+    // Description: Reads up to length bytes at a position of a file into a little-endian buffer ready to be read.
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+
+    // Method: writeFully
+    // Description: Writes every remaining byte of a buffer.
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+
+// Class: CsvFollower
+// Description: Follows transactions.csv while the program runs, so rows appended by other programs
+// (such as a bank-sync job) appear without a restart. A background thread waits for the WatchService
+// to report a change to the file, or for a poll interval on file systems that do not report changes,
+// and then parses only the bytes after the last offset it read, up to the last complete line; a partial
+// line is read once it is finished. The parsed rows are handed to a sink that adds them to the ledger,
+// so the cost of each catch-up is proportional to the new data.
+// Before each catch-up the follower checks that the file is still the one it was reading: the same
+// file key (inode) and the same LedgerSnapshot fingerprint of the bytes before the offset. A file that
+// was replaced, for example by an editor or a sync job renaming a new file over it, is read again from
+// the start, even if it is as long as the old one or longer.
+// The program's own AppendLog writes to the same file, and those rows are already in the ledger when
+// their bytes arrive. The follower takes the lines the log wrote, in file order, and skips each one where
+// it finds it in the file. Every other line is new, even one that repeats an existing transaction, as it
+// would be when the whole file is loaded. Only a replaced file, read again from the start, holds rows the
+// ledger may already have; those bytes are handed on with mayRepeat set so the sink can skip duplicates.
+// catchUp() and getOffset() synchronize on the follower, so holding its lock keeps rows from being
+// followed meanwhile.
+public class CsvFollower implements AutoCloseable {
+    private static final long POLL_MILLIS = 1000;
+    // Read at most this much per parse, so a large burst does not need one huge buffer
+    private static final int MAX_READ = 16 << 20;
+    private static final byte NEWLINE = '\n';
+    private static final Metrics.Histogram CATCH_UP = Metrics.histogram("tracker_follow_seconds", "",
+            "Time to parse and add the rows appended to transactions.csv by other programs");
+    private static final Metrics.Counter BYTES = Metrics.counter("tracker_follow_bytes_total", "",
+            "Bytes of transactions.csv read by follow mode after start-up");
+    private static final Metrics.Counter ROWS = Metrics.counter("tracker_follow_rows_total", "",
+            "Transactions appended by other programs and added by follow mode");
+
+    private final Path file;
+    private final AppendLog appendLog;
+    private final Sink sink;
+    private final WatchService watcher;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // Bytes of the file already read, and the file key and fingerprint of the file they were read from;
+    // guarded by this
+    private long offset;
+    private Object fileKey;
+    private long fingerprint;
+    // Lines the append log wrote that the follower has not reached in the file yet, without their newline
+    private final ArrayDeque<byte[]> ownLines = new ArrayDeque<>();
+    // After the file was replaced, the end of the part read again that the ledger may already hold
+    private long repeatedUntil;
+
+
+    // Constructor: CsvFollower
+    // Description: Starts following a file from the given offset, the number of bytes already loaded or
+    // written. appendLog is the program's own writer of the file, whose trackWrites() must have been called
+    // when the offset was taken. sink adds parsed rows to the ledger and returns how many it added.
+    public CsvFollower(Path file, long offset, AppendLog appendLog, Sink sink) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.offset = offset;
+        this.appendLog = appendLog;
+        this.sink = sink;
+        if (Files.exists(this.file)) {
+            fileKey = Files.readAttributes(this.file, BasicFileAttributes.class).fileKey();
+            fingerprint = LedgerSnapshot.fingerprint(this.file, offset);
+        }
+        // A WatchService watches directories, so watch the file's directory and check the file on any change
+        watcher = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(this::run, "csv-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    // Method: catchUp
+    // Description: Reads every complete line appended since the last call, leaves out the lines the
+    // program wrote itself and hands the other rows to the sink. If the file was rewritten or replaced,
+    // it is read again from the start and the sink skips rows the ledger already has.
+    // Returns the number of rows added.
+    public synchronized long catchUp() throws IOException {
+        long added = 0;
+        while (true) {
+            if (!Files.exists(file)) {
+                // Being replaced; the new file is read once it appears
+                return added;
+            }
+            BasicFileAttributes attributes;
+            // Every line the log wrote before the size is read is taken here, so any other line
+            // before that size was appended by another program
+            synchronized (appendLog) {
+                for (byte[] entry : appendLog.takeWrites()) {
+                    addOwnLines(entry);
+                }
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            }
+            long size = attributes.size();
+            if (isReplaced(attributes)) {
+                System.out.println(file.getFileName() + " was replaced; reading it again for new transactions");
+                offset = 0;
+                fileKey = attributes.fileKey();
+                fingerprint = LedgerSnapshot.fingerprint(file, 0);
+                ownLines.clear();
+                repeatedUntil = size;
+            } else if (fileKey == null) {
+                // The file did not exist when following started
+                fileKey = attributes.fileKey();
+            }
+            if (size == offset) {
+                return added;
+            }
+
+            // Read the part that may repeat rows on its own, so rows after it are not checked
+            long readEnd = offset < repeatedUntil ? Math.min(size, repeatedUntil) : size;
+            boolean mayRepeat = offset < repeatedUntil;
+
+            Metrics.Timer timer = CATCH_UP.start();
+            ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(readEnd - offset, MAX_READ));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (bytes.hasRemaining() && channel.read(bytes, offset + bytes.position()) >= 0) {
+                    // Keep reading until the buffer is full or the file ends
+                }
+            }
+            // Stop after the last complete line; the rest is read once its newline is written
+            int end = bytes.position();
+            while (end > 0 && bytes.get(end - 1) != NEWLINE) {
+                end--;
+            }
+            if (end == 0) {
+                timer.stop(0);
+                if (bytes.position() < MAX_READ) {
+                    return added;
+                }
+                throw new IOException("a line of " + file.getFileName() + " is longer than " + MAX_READ + " bytes");
+            }
+            bytes.position(0).limit(removeOwnLines(bytes.array(), end));
+
+            TransactionStore staged = new TransactionStore();
+            TransactionParser parser = new TransactionParser();
+            parser.parseChunk(bytes, staged);
+            FinancialTracker.PARSE_ERRORS.add(parser.getBadLineCount());
+            long rows = staged.size() == 0 ? 0 : sink.add(staged, mayRepeat);
+            offset += end;
+            fingerprint = LedgerSnapshot.fingerprint(file, offset);
+            added += rows;
+            BYTES.add(end);
+            ROWS.add(rows);
+            timer.stop(rows);
+        }
+    }
+
+
+    // Method: addOwnLines
+    // Description: Queues the lines of an entry the append log wrote, without their newlines.
+    private void addOwnLines(byte[] entry) {
+        int start = 0;
+        for (int i = 0; i < entry.length; i++) {
+            if (entry[i] == NEWLINE) {
+                ownLines.add(Arrays.copyOfRange(entry, start, i));
+                start = i + 1;
+            }
+        }
+    }
+
+
+    // Method: removeOwnLines
+    // Description: Removes from the first length bytes of the buffer each line that is the next line the
+    // append log wrote, moving the other lines down. Returns the length of what is left.
+    private int removeOwnLines(byte[] buffer, int length) {
+        int kept = 0;
+        int start = 0;
+        while (start < length) {
+            int newline = start;
+            while (buffer[newline] != NEWLINE) {
+                newline++;
+            }
+            byte[] own = ownLines.peekFirst();
+            if (own != null && Arrays.equals(buffer, start, newline, own, 0, own.length)) {
+                ownLines.removeFirst();
+            } else {
+                System.arraycopy(buffer, start, buffer, kept, newline + 1 - start);
+                kept += newline + 1 - start;
+            }
+            start = newline + 1;
+        }
+        return kept;
+    }
+
+
+    // Method: isReplaced
+    // Description: Returns whether the file is no longer the one read so far: it is shorter than the
+    // offset, has another file key, or its bytes before the offset changed.
+    private boolean isReplaced(BasicFileAttributes attributes) throws IOException {
+        if (attributes.size() < offset) {
+            return true;
+        }
+        if (fileKey != null && !fileKey.equals(attributes.fileKey())) {
+            return true;
+        }
+        return LedgerSnapshot.fingerprint(file, offset) != fingerprint;
+    }
+
+
+    // Method: getOffset
+    // Description: Returns how many bytes of the file have been read.
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+
+    // Method: close
+    // Description: Stops following the file; rows already read stay in the ledger.
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watcher.close();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    // Method: run
+    // Description: Background loop: wait for a change or the poll interval, then catch up.
+    private void run() {
+        while (!closed) {
+            try {
+                WatchKey key = watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // Any change in the directory is a reason to look; catchUp checks the file itself
+                    key.pollEvents();
+                    key.reset();
+                }
+                catchUp();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                System.out.println("Error following " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+
+    // Interface: Sink
+    // Description: Adds rows read from the file to the ledger and returns how many it added.
+    // mayRepeat is set for rows of a replaced file read again, which the ledger may already have.
+    public interface Sink {
+        long add(TransactionStore rows, boolean mayRepeat);
+    }
+}
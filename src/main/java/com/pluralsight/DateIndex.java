@@ -0,0 +1,278 @@
+package com.pluralsight;
+
+import java.util.Arrays;
+
+
+// Class: DateIndex
+// Description: Keeps the row numbers of a TransactionStore sorted by date and time.
+// A date range is found with two binary searches, so a report costs O(log n + k)
+// instead of a scan over every row. Rows with the same date and time keep their insert order.
+// Positions that are already filled are never changed in place: new rows are either appended
+// past the end or merged into new arrays, which lets snapshot() share the arrays with readers.
+public class DateIndex {
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private final TransactionStore store;
+
+    // Sort keys (epoch day * 86400 + second of day) and the matching row numbers, by position
+    private long[] keys;
+    private int[] rows;
+    private int size;
+
+
+    // Constructor: DateIndex
+    // Description: Creates an empty index over the given store.
+    public DateIndex(TransactionStore store) {
+        this.store = store;
+        keys = new long[1024];
+        rows = new int[1024];
+    }
+
+
+    // Constructor: DateIndex
+    // Description: Creates a read-only view of another index, sharing its arrays.
+    private DateIndex(DateIndex source, TransactionStore store) {
+        this.store = store;
+        this.keys = source.keys;
+        this.rows = source.rows;
+        this.size = source.size;
+    }
+
+
+    // Method: snapshot
+    // Description: Returns a read-only view of the index as it is now, over a snapshot of its store.
+    // The view must only be searched, never added to.
+    public DateIndex snapshot(TransactionStore storeSnapshot) {
+        return new DateIndex(this, storeSnapshot);
+    }
+
+
+    // Method: rebuild
+    // Description: Re-indexes every row of the store in one pass, used after a bulk load.
+    public void rebuild() {
+        int count = store.size();
+        keys = new long[Math.max(count, 1024)];
+        rows = new int[keys.length];
+        size = count;
+
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        boolean sorted = true;
+        for (int row = 0; row < count; row++) {
+            keys[row] = key(row);
+            rows[row] = row;
+            if (row > 0 && keys[row] < keys[row - 1]) {
+                sorted = false;
+            }
+            minDay = Math.min(minDay, store.getEpochDay(row));
+            maxDay = Math.max(maxDay, store.getEpochDay(row));
+        }
+        // Ledgers are usually written in date order, so often there is nothing left to do
+        if (sorted) {
+            return;
+        }
+
+        // Pack (key relative to the first day, row) into one long so a primitive sort keeps rows stable
+        long span = (maxDay - (long) minDay + 1) * SECONDS_PER_DAY;
+        if (span < (1L << 32)) {
+            long base = (long) minDay * SECONDS_PER_DAY;
+            long[] packed = new long[count];
+            for (int row = 0; row < count; row++) {
+                packed[row] = ((keys[row] - base) << 31) | row;
+            }
+            Arrays.parallelSort(packed);
+            for (int i = 0; i < count; i++) {
+                int row = (int) (packed[i] & Integer.MAX_VALUE);
+                rows[i] = row;
+                keys[i] = key(row);
+            }
+        } else {
+            // Dates spread over more than a century: fall back to a comparator sort
+            Integer[] boxed = new Integer[count];
+            for (int row = 0; row < count; row++) {
+                boxed[row] = row;
+            }
+            long[] rowKeys = Arrays.copyOf(keys, count);
+            Arrays.sort(boxed, (a, b) -> Long.compare(rowKeys[a], rowKeys[b]));
+            for (int i = 0; i < count; i++) {
+                rows[i] = boxed[i];
+                keys[i] = rowKeys[boxed[i]];
+            }
+        }
+    }
+
+
+    // Method: restore
+    // Description: Replaces the index with row numbers that are already in date/time order,
+    // such as the order saved in a snapshot.
+    void restore(int[] order, int count) {
+        keys = new long[Math.max(count, 1024)];
+        rows = Arrays.copyOf(order, keys.length);
+        size = count;
+        for (int i = 0; i < count; i++) {
+            keys[i] = key(rows[i]);
+        }
+    }
+
+
+    // Method: order
+    // Description: Returns the backing array of row numbers in date/time order, valid up to size().
+    int[] order() {
+        return rows;
+    }
+
+
+    // Method: add
+    // Description: Inserts a newly appended row at its sorted position.
+    // New transactions are normally the latest ones, which makes this an append at the end;
+    // an older date is inserted into new arrays so the filled positions never move.
+    public void add(int row) {
+        long key = key(row);
+        int position = upperBoundKey(key);
+        if (position < size || size == keys.length) {
+            long[] newKeys = new long[size == keys.length ? size * 2 : keys.length];
+            int[] newRows = new int[newKeys.length];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(rows, 0, newRows, 0, position);
+            System.arraycopy(keys, position, newKeys, position + 1, size - position);
+            System.arraycopy(rows, position, newRows, position + 1, size - position);
+            keys = newKeys;
+            rows = newRows;
+        }
+        keys[position] = key;
+        rows[position] = row;
+        size++;
+    }
+
+
+    // Method: addAll
+    // Description: Inserts a batch of new rows by sorting the batch and merging it with the index,
+    // which costs O(n + m log m) instead of one array shift per row.
+    public void addAll(IntList newRows) {
+        int count = newRows.size();
+        // A batch of every row past the indexed ones that is at least as large as the index,
+        // such as a bulk load, is cheaper to index with one primitive sort of everything
+        if (count >= size && count == store.size() - size && isTail(newRows)) {
+            rebuild();
+            return;
+        }
+        long[] batchKeys = new long[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            batchKeys[i] = key(newRows.get(i));
+            order[i] = i;
+        }
+        // A stable sort keeps rows with equal keys in insert order
+        Arrays.sort(order, (a, b) -> Long.compare(batchKeys[a], batchKeys[b]));
+
+        // A batch that is entirely on or after the last indexed row is appended past the end
+        if (count == 0 || size == 0 || batchKeys[order[0]] >= keys[size - 1]) {
+            if (size + count > keys.length) {
+                int capacity = Math.max(size + count, keys.length * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                rows = Arrays.copyOf(rows, capacity);
+            }
+            for (int j = 0; j < count; j++) {
+                keys[size] = batchKeys[order[j]];
+                rows[size++] = newRows.get(order[j]);
+            }
+            return;
+        }
+
+        long[] mergedKeys = new long[Math.max(size + count, keys.length)];
+        int[] mergedRows = new int[mergedKeys.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < count) {
+            if (j == count || (i < size && keys[i] <= batchKeys[order[j]])) {
+                mergedKeys[k] = keys[i];
+                mergedRows[k++] = rows[i++];
+            } else {
+                mergedKeys[k] = batchKeys[order[j]];
+                mergedRows[k++] = newRows.get(order[j++]);
+            }
+        }
+        keys = mergedKeys;
+        rows = mergedRows;
+        size = k;
+    }
+
+
+    // Method: isTail
+    // Description: Returns whether the rows are exactly the store's rows past the indexed ones, in order.
+    private boolean isTail(IntList newRows) {
+        for (int i = 0; i < newRows.size(); i++) {
+            if (newRows.get(i) != size + i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // Method: lowerBound
+    // Description: Returns the first position whose date is on or after the given epoch day.
+    public int lowerBound(int epochDay) {
+        return upperBoundKey((long) epochDay * SECONDS_PER_DAY - 1);
+    }
+
+
+    // Method: upperBound
+    // Description: Returns the first position whose date is after the given epoch day.
+    public int upperBound(int epochDay) {
+        return upperBoundKey((long) epochDay * SECONDS_PER_DAY + SECONDS_PER_DAY - 1);
+    }
+
+
+    // Method: lowerBound
+    // Description: Returns the first position at or after the given date and time.
+    public int lowerBound(int epochDay, int secondOfDay) {
+        return upperBoundKey((long) epochDay * SECONDS_PER_DAY + secondOfDay - 1);
+    }
+
+
+    // Method: upperBound
+    // Description: Returns the first position after the given date and time.
+    public int upperBound(int epochDay, int secondOfDay) {
+        return upperBoundKey((long) epochDay * SECONDS_PER_DAY + secondOfDay);
+    }
+
+
+    // Method: rowAt
+    // Description: Returns the row number stored at a position, positions being in date/time order.
+    public int rowAt(int position) {
+        return rows[position];
+    }
+
+
+    // Method: size
+    // Description: Returns the number of indexed rows.
+    public int size() {
+        return size;
+    }
+
+
+    // Method: upperBoundKey
+    // Description: Binary search for the first position whose key is greater than the given key.
+    private int upperBoundKey(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+
+    // Method: key
+    // Description: Builds the sort key of a row from its date and time columns.
+    private long key(int row) {
+        return (long) store.getEpochDay(row) * SECONDS_PER_DAY + store.getSecondOfDay(row);
+    }
+}
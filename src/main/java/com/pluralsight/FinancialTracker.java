@@ -1,27 +1,163 @@
 package com.pluralsight;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class FinancialTracker {
 
-    // List to hold all transactions in memory
-    private static ArrayList<Transaction> transactions = new ArrayList<>();
+    // All transactions with their date and text indexes and totals; any thread may add to it,
+    // and reports read the latest published view of it without locking
+    private static Ledger ledger = new Ledger();
+    // Long-lived writer that appends new transactions to the CSV file in group commits
+    private static AppendLog appendLog;
+    // With --data-dir, the monthly partition files that replace the CSV file and its append log
+    private static MonthPartitions partitions;
+    // With --follow, reads rows that other programs append to the CSV file
+    private static CsvFollower follower;
+    // With --explain, the custom search prints the plan it used after its results
+    private static boolean explainSearches;
+    // How many bytes of the CSV file the loaded transactions came from
+    private static long csvBytesLoaded;
     private static final String FILE_NAME = "transactions.csv";
+    private static final String SNAPSHOT_FILE = "transactions.snapshot";
+    // Rows validated, deduplicated and written together by importTransactions
+    private static final int IMPORT_BATCH_SIZE = 65536;
+    // Held from the duplicate check of a batch until it is published, so two imports running at once
+    // (POST /transactions, --follow) cannot both find a row missing and both add it
+    private static final ReentrantLock IMPORT_LOCK = new ReentrantLock();
+    // Rows shown at a time by the "All" ledger view
+    private static final int LEDGER_PAGE_SIZE = 50;
     private static final String DATE_FORMAT = "yyyy-MM-dd";
     private static final String TIME_FORMAT = "HH:mm:ss";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(TIME_FORMAT);
 
+    // Metrics of loading, saving and the reports; see Metrics
+    static final Metrics.Counter ROWS_LOADED = Metrics.counter("tracker_rows_loaded_total", "",
+            "Transactions loaded into the ledger from files");
+    static final Metrics.Counter PARSE_ERRORS = Metrics.counter("tracker_parse_errors_total", "",
+            "Lines skipped because they are not valid transactions");
+    private static final Metrics.Histogram LOAD_CSV = Metrics.histogram("tracker_load_seconds", "source=\"csv\"",
+            "Time to load transactions into the ledger");
+    private static final Metrics.Histogram LOAD_PARALLEL = Metrics.histogram("tracker_load_seconds",
+            "source=\"csv_parallel\"", "Time to load transactions into the ledger");
+    private static final Metrics.Histogram LOAD_SNAPSHOT = Metrics.histogram("tracker_load_seconds",
+            "source=\"snapshot\"", "Time to load transactions into the ledger");
+    private static final Metrics.Histogram SAVE = Metrics.histogram("tracker_save_seconds", "",
+            "Time from handing new transactions to the writer until they are written and synced");
+    private static final Metrics.Counter ROWS_SAVED = Metrics.counter("tracker_rows_saved_total", "",
+            "New transactions written to the transaction files");
+    private static final Metrics.Histogram IMPORT = Metrics.histogram("tracker_import_seconds", "",
+            "Time to import a file or POST body of transactions");
+    private static final Metrics.Counter IMPORT_DUPLICATES = Metrics.counter("tracker_import_duplicates_total", "",
+            "Imported rows skipped because the ledger already has them");
+    private static final Metrics.Histogram REPORT_DEPOSITS = reportHistogram("deposits");
+    private static final Metrics.Histogram REPORT_PAYMENTS = reportHistogram("payments");
+    private static final Metrics.Histogram REPORT_DATE = reportHistogram("date_range");
+    private static final Metrics.Histogram REPORT_VENDOR = reportHistogram("vendor");
+    private static final Metrics.Histogram REPORT_SEARCH = reportHistogram("custom_search");
+
+    static {
+        Metrics.gauge("tracker_ledger_rows", "", "Transactions held in memory by the ledger",
+                () -> ledger.view().size());
+        Metrics.gauge("tracker_heap_used_bytes", "", "Java heap in use",
+                () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+    }
+
 
     // Method: main
     // Description: Starts the program, shows Home Screen, handles user navigation.
+    // Pass --parallel to load the file with the memory-mapped parallel loader, and
+    // --fsync=always|never|<milliseconds> to choose when saved transactions are synced to disk.
+    // Pass --import=<file> to append a bank export without starting the menu,
+    // or --serve=<port> to serve the ledger over HTTP instead of the menu.
+    // A binary snapshot saved on exit is used for a fast start unless --no-snapshot is given.
+    // Pass --data-dir=<directory> to keep one file per month there instead of transactions.csv;
+    // months are then loaded only when a report needs them. With --data-dir, --compact compresses
+    // every month before the previous one into blocks that reports can skip, then exits.
+    // Pass --follow to add rows that other programs append to transactions.csv while the program runs,
+    // and --explain to have the custom search show how it found its results.
     public static void main(String[] args) {
-        loadTransactions(FILE_NAME);
+        explainSearches = Arrays.asList(args).contains("--explain");
+        String dataDirectory = optionValue(args, "--data-dir=", null);
+        boolean useSnapshot = !Arrays.asList(args).contains("--no-snapshot");
+        // Partitions are loaded as reports need them, so with --data-dir there is nothing to load up front
+        if (dataDirectory == null && (!useSnapshot || !loadSnapshot(FILE_NAME, SNAPSHOT_FILE))) {
+            if (Arrays.asList(args).contains("--parallel")) {
+                loadTransactionsParallel(FILE_NAME);
+            } else {
+                loadTransactions(FILE_NAME);
+            }
+        }
+        try {
+            if (dataDirectory != null) {
+                openPartitions(dataDirectory, optionValue(args, "--fsync=", "always"));
+            } else {
+                openAppendLog(FILE_NAME, optionValue(args, "--fsync=", "always"));
+            }
+        } catch (IOException e) {
+            System.out.println("Error opening file for writing: " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        // Headless compaction: compress the months before the previous one into blocks and exit
+        if (Arrays.asList(args).contains("--compact")) {
+            if (partitions == null) {
+                System.out.println("--compact needs --data-dir=<directory>");
+            } else {
+                try {
+                    partitions.compact(YearMonth.now().minusMonths(1));
+                } catch (IOException e) {
+                    System.out.println("Error compacting partitions: " + e.getMessage());
+                }
+            }
+            closeAppendLog();
+            return;
+        }
+
+        // Headless batch ingest: import the file, print the statistics and exit
+        String importFile = optionValue(args, "--import=", null);
+        if (importFile != null) {
+            try {
+                System.out.println(importTransactions(Paths.get(importFile)));
+            } catch (IOException e) {
+                System.out.println("Error importing file: " + e.getMessage());
+            }
+            closeAppendLog();
+            return;
+        }
+
+        if (Arrays.asList(args).contains("--follow")) {
+            startFollowing();
+        }
+
+        // Headless service: answer HTTP requests until the program is stopped
+        String port = optionValue(args, "--serve=", null);
+        if (port != null) {
+            serve(port);
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
 
@@ -31,6 +167,8 @@ public class FinancialTracker {
             System.out.println("D) Add Deposit");
             System.out.println("P) Make Payment (Debit)");
             System.out.println("L) Ledger");
+            System.out.println("S) Save Snapshot");
+            System.out.println("M) Metrics");
             System.out.println("X) Exit");
 
             String input = scanner.nextLine().trim();
@@ -45,6 +183,12 @@ public class FinancialTracker {
                 case "L":
                     ledgerMenu(scanner);
                     break;
+                case "S":
+                    saveSnapshot();
+                    break;
+                case "M":
+                    System.out.print(Metrics.toPrometheus());
+                    break;
                 case "X":
                     running = false;
                     break;
@@ -55,44 +199,536 @@ public class FinancialTracker {
         }
 
         scanner.close();
+        closeAppendLog();
+        // A clean exit leaves a snapshot so the next start does not re-parse the CSV file
+        saveSnapshot();
+    }
+
+
+    // Method: serve
+    // Description: Starts the HTTP server on the given port. The server keeps the program running;
+    // when it is stopped (Ctrl+C) the append log is closed and a snapshot is saved, as on a clean exit.
+    private static void serve(String port) {
+        LedgerServer server;
+        try {
+            server = new LedgerServer(Integer.parseInt(port));
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error starting server: " + e.getMessage());
+            closeAppendLog();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            closeAppendLog();
+            saveSnapshot();
+        }));
+        server.start();
+        System.out.println("Serving the ledger on http://localhost:" + server.getPort() + "/ with "
+                + (server.usesVirtualThreads() ? "virtual threads" : "platform threads") + ", press Ctrl+C to stop");
+    }
+
+
+    // Method: closeAppendLog
+    // Description: Stops following the CSV file, then flushes and closes the append log before the program ends.
+    static void closeAppendLog() {
+        try {
+            if (follower != null) {
+                follower.close();
+            }
+            if (partitions != null) {
+                partitions.close();
+            } else {
+                appendLog.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Error closing file: " + e.getMessage());
+        }
+    }
+
+
+    // Method: optionValue
+    // Description: Returns the value of a --name=value command-line option, or the default.
+    private static String optionValue(String[] args, String prefix, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+
+
+    // Method: openAppendLog
+    // Description: Opens the append log with the sync policy named by the --fsync option:
+    // "always", "never", or a number of milliseconds between syncs.
+    static void openAppendLog(String fileName, String fsync) throws IOException {
+        appendLog = new AppendLog(Paths.get(fileName), syncPolicy(fsync), syncIntervalMillis(fsync));
+    }
+
+
+    // Method: startFollowing
+    // Description: Starts following the CSV file from the end of what is loaded and written so far,
+    // adding rows that other programs append to it as they arrive.
+    private static void startFollowing() {
+        if (partitions != null) {
+            System.out.println("--follow reads " + FILE_NAME + " and cannot be used with --data-dir");
+            return;
+        }
+        try {
+            follower = new CsvFollower(Paths.get(FILE_NAME), csvBytesLoaded + appendLog.trackWrites(), appendLog,
+                    FinancialTracker::addFollowed);
+            System.out.println("Following " + FILE_NAME + " for transactions added by other programs");
+        } catch (IOException e) {
+            System.out.println("Error following " + FILE_NAME + ": " + e.getMessage());
+        }
+    }
+
+
+    // Method: openPartitions
+    // Description: Opens the monthly partitions of a data directory, whose files are written with the
+    // sync policy named by the --fsync option. The first time, transactions.csv is split into the directory.
+    static void openPartitions(String directory, String fsync) throws IOException {
+        Path path = Paths.get(directory);
+        AppendLog.SyncPolicy policy = syncPolicy(fsync);
+        if (!MonthPartitions.exists(path) && Files.exists(Paths.get(FILE_NAME))) {
+            int skipped = MonthPartitions.split(Paths.get(FILE_NAME), path);
+            System.out.println("Split " + FILE_NAME + " into monthly files under " + directory
+                    + (skipped > 0 ? " (skipped " + skipped + " line(s) without a valid date)" : ""));
+        }
+        partitions = MonthPartitions.open(path, ledger, policy, syncIntervalMillis(fsync));
+        System.out.printf("Found %d monthly partitions (%d transactions) in %s; they are loaded as reports need them%n",
+                partitions.getPartitionCount(), partitions.getRowCount(), directory);
+    }
+
+
+    // Method: syncPolicy
+    // Description: Returns the sync policy named by the --fsync option:
+    // "always", "never", or a number of milliseconds between syncs.
+    private static AppendLog.SyncPolicy syncPolicy(String fsync) {
+        switch (fsync.toLowerCase()) {
+            case "always":
+                return AppendLog.SyncPolicy.ALWAYS;
+            case "never":
+                return AppendLog.SyncPolicy.NEVER;
+            default:
+                syncIntervalMillis(fsync);
+                return AppendLog.SyncPolicy.INTERVAL;
+        }
+    }
+
+
+    // Method: syncIntervalMillis
+    // Description: Returns the milliseconds between syncs given by the --fsync option, 0 if it names a policy.
+    // A number of milliseconds must be positive.
+    private static long syncIntervalMillis(String fsync) {
+        if (fsync.equalsIgnoreCase("always") || fsync.equalsIgnoreCase("never")) {
+            return 0;
+        }
+        long millis;
+        try {
+            millis = Long.parseLong(fsync);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid --fsync value: " + fsync);
+        }
+        // The writer waits this long between syncs, so zero or less would keep it spinning
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Invalid --fsync value: " + fsync);
+        }
+        return millis;
+    }
+
+
+    // Method: resetLedger
+    // Description: Drops every loaded transaction and starts over with an empty store and indexes,
+    // so a benchmark can load a ledger again in the same JVM.
+    static void resetLedger() {
+        ledger = new Ledger();
+        partitions = null;
+        csvBytesLoaded = 0;
+    }
+
+
+    // Method: reportHistogram
+    // Description: Returns the latency histogram of one of the reports.
+    private static Metrics.Histogram reportHistogram(String report) {
+        return Metrics.histogram("tracker_report_seconds", "report=\"" + report + "\"",
+                "Time to find and print a report, including loading the partitions it needs");
+    }
+
+
+    // Method: ensureLoaded
+    // Description: With --data-dir, loads the partitions holding dates from startDate to endDate that
+    // are not loaded yet; null leaves that side open. Without partitions everything is already loaded.
+    static void ensureLoaded(LocalDate startDate, LocalDate endDate) {
+        ensureLoaded(startDate, endDate, Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+
+    // Method: ensureMonthsLoaded
+    // Description: Loads the whole months from startDate to endDate, before rows are added to them.
+    // A new date can fall outside the dates a month's partition holds so far, so loading only the
+    // new dates could leave the month unloaded.
+    static void ensureMonthsLoaded(LocalDate startDate, LocalDate endDate) {
+        ensureLoaded(startDate.withDayOfMonth(1), endDate.withDayOfMonth(endDate.lengthOfMonth()));
+    }
+
+
+    // Method: ensureLoaded
+    // Description: Loads what a custom search may match: its dates and, from compacted months,
+    // only the blocks whose amounts overlap its amount range.
+    static void ensureLoaded(TransactionQuery query) {
+        ensureLoaded(query.getStartDate(), query.getEndDate(),
+                query.getMinCents() == null ? Long.MIN_VALUE : query.getMinCents(),
+                query.getMaxCents() == null ? Long.MAX_VALUE : query.getMaxCents(), null);
+    }
+
+
+    // Method: ensureVendorLoaded
+    // Description: Loads what the vendor report may match; blocks of compacted months whose
+    // bloom filter does not hold the vendor stay on disk.
+    static void ensureVendorLoaded(String vendor) {
+        ensureLoaded(null, null, Long.MIN_VALUE, Long.MAX_VALUE, vendor);
+    }
+
+
+    // Method: ensureLoaded
+    // Description: Passes a load request on to the partitions and reports read errors.
+    private static void ensureLoaded(LocalDate startDate, LocalDate endDate, long minCents, long maxCents,
+                                     String vendor) {
+        if (partitions == null) {
+            return;
+        }
+        try {
+            partitions.ensureLoaded(startDate, endDate, minCents, maxCents, vendor);
+        } catch (IOException e) {
+            System.out.println("Error reading partition: " + e.getMessage());
+        }
+    }
+
+
+    // Method: view
+    // Description: Returns the latest published view of the ledger, for readers on any thread.
+    static LedgerView view() {
+        return ledger.view();
+    }
+
+
+    // Method: getTransactionCount
+    // Description: Returns the number of transactions in the ledger.
+    static int getTransactionCount() {
+        return ledger.view().size();
     }
 
 
     // Method: loadTransactions
-    // Description: Loads transactions from the CSV file into the ArrayList at start of program.
+    // Description: Loads transactions from the CSV file into the transaction store at start of program.
     public static void loadTransactions(String fileName) {
         File file = new File(fileName);
 
+        if (!file.exists()) {
+            System.out.println("File does not exist");
+            return;
+        }
+
+        Metrics.Timer timer = LOAD_CSV.start();
+        TransactionParser parser = new TransactionParser();
+        try (InputStream in = new FileInputStream(file)) {
+            parser.parse(in, ledger.store());
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return;
+        }
+        ledger.indexLoadedRows();
+        timer.stop(parser.getRowCount());
+        ROWS_LOADED.add(parser.getRowCount());
+        PARSE_ERRORS.add(parser.getBadLineCount());
+
+        csvBytesLoaded = parser.getByteCount();
+        System.out.printf("Loaded %d transactions in %d ms (%d rows/sec)%n",
+                parser.getRowCount(), parser.getElapsedNanos() / 1_000_000, parser.getRowsPerSecond());
+        if (parser.getBadLineCount() > 0) {
+            System.out.printf("Skipped %d invalid line(s), first bad line: %d%n",
+                    parser.getBadLineCount(), parser.getFirstBadLine());
+        }
+    }
+
+
+    // Method: loadTransactionsParallel
+    // Description: Loads transactions by memory-mapping the CSV file and parsing chunks on all cores.
+    public static void loadTransactionsParallel(String fileName) {
+        File file = new File(fileName);
+
+        if (!file.exists()) {
+            System.out.println("File does not exist");
+            return;
+        }
+
+        Metrics.Timer timer = LOAD_PARALLEL.start();
+        ParallelTransactionLoader loader = new ParallelTransactionLoader(ForkJoinPool.commonPool());
         try {
-            if (!file.exists()) {
-                System.out.println("File does not exist");
+            loader.load(file.toPath(), ledger.store());
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return;
+        }
+        ledger.indexLoadedRows();
+        timer.stop(loader.getRowCount());
+        ROWS_LOADED.add(loader.getRowCount());
+        PARSE_ERRORS.add(loader.getBadLineCount());
+
+        csvBytesLoaded = loader.getByteCount();
+        System.out.printf("Loaded %d transactions in %d ms (%d rows/sec, %d chunks)%n",
+                loader.getRowCount(), loader.getElapsedNanos() / 1_000_000, loader.getRowsPerSecond(),
+                loader.getChunkCount());
+        if (loader.getBadLineCount() > 0) {
+            System.out.printf("Skipped %d invalid line(s), first bad line: %d%n",
+                    loader.getBadLineCount(), loader.getFirstBadLine());
+        }
+    }
+
+
+    // Method: loadSnapshot
+    // Description: Loads the binary snapshot, then parses only the CSV rows appended after it.
+    // Returns false if there is no usable snapshot, so the caller loads the CSV file instead.
+    public static boolean loadSnapshot(String fileName, String snapshotName) {
+        Path snapshotPath = Paths.get(snapshotName);
+        Path csvPath = Paths.get(fileName);
+        if (!Files.exists(snapshotPath) || !Files.exists(csvPath)) {
+            return false;
+        }
+
+        Metrics.Timer timer = LOAD_SNAPSHOT.start();
+        TransactionStore store = ledger.store();
+        LedgerSnapshot snapshot = new LedgerSnapshot(store, ledger.dateIndex(), ledger.amountIndex());
+        try {
+            snapshot.read(snapshotPath, csvPath);
+        } catch (IOException e) {
+            System.out.println("Snapshot not used (" + e.getMessage() + "), loading " + fileName);
+            return false;
+        }
+        int snapshotRows = store.size();
+
+        // Replay the CSV tail written after the snapshot was saved
+        TransactionParser parser = new TransactionParser();
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            channel.position(snapshot.getCsvOffset());
+            parser.parse(Channels.newInputStream(channel), store);
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+        }
+        csvBytesLoaded = snapshot.getCsvOffset() + parser.getByteCount();
+        ledger.indexLoadedRows();
+        long elapsed = timer.stop(store.size());
+        ROWS_LOADED.add(store.size());
+        PARSE_ERRORS.add(parser.getBadLineCount());
+
+        System.out.printf("Loaded %d transactions from snapshot and %d appended after it in %d ms%n",
+                snapshotRows, store.size() - snapshotRows, elapsed / 1_000_000);
+        if (parser.getBadLineCount() > 0) {
+            System.out.printf("Skipped %d invalid line(s) after the snapshot, first bad line: %d lines after it%n",
+                    parser.getBadLineCount(), parser.getFirstBadLine());
+        }
+        return true;
+    }
+
+
+    // Method: saveSnapshot
+    // Description: Writes the binary snapshot covering everything currently in the CSV file.
+    // Every saved transaction has been written by the time this runs, because callers wait for their saves.
+    private static void saveSnapshot() {
+        // Partitions need no snapshot: only the manifest is read at start-up, and it is only
+        // rewritten when a partition changed since it was last saved
+        if (partitions != null) {
+            try {
+                if (partitions.saveManifest()) {
+                    System.out.println("Manifest saved (" + partitions.getPartitionCount() + " partitions)");
+                }
+            } catch (IOException e) {
+                System.out.println("Error saving manifest: " + e.getMessage());
+            }
+            return;
+        }
+        try {
+            // Following the file, the ledger holds every complete line up to the follower's offset.
+            // Holding the follower's lock keeps more followed rows from joining while the snapshot is written.
+            if (follower != null) {
+                synchronized (follower) {
+                    follower.catchUp();
+                    writeSnapshot(follower.getOffset());
+                }
+                return;
+            }
+            long csvSize = Files.size(Paths.get(FILE_NAME));
+            if (csvSize != csvBytesLoaded + appendLog.getBytesWritten()) {
+                System.out.println("Snapshot not saved: " + FILE_NAME + " was changed by another program");
                 return;
             }
+            writeSnapshot(csvSize);
+        } catch (IOException e) {
+            System.out.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+
+
+    // Method: writeSnapshot
+    // Description: Writes the snapshot of the current view, covering the first csvOffset bytes of the CSV file.
+    private static void writeSnapshot(long csvOffset) throws IOException {
+        LedgerView view = ledger.view();
+        new LedgerSnapshot(view.getStore(), view.getDateIndex(), view.getAmountIndex())
+                .write(Paths.get(SNAPSHOT_FILE), Paths.get(FILE_NAME), csvOffset);
+        System.out.println("Snapshot saved (" + view.size() + " transactions)");
+    }
 
-            // Initialize BufferedReader to read file
-            BufferedReader reader = new BufferedReader(new FileReader(file));
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
+    // Method: importTransactions
+    // Description: Imports a pipe-delimited file in the same format as transactions.csv.
+    public static ImportResult importTransactions(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return importTransactions(in);
+        }
+    }
 
-                //Parse the transactions.csv
-                LocalDate date = LocalDate.parse(parts[0]); //
-                LocalTime time = LocalTime.parse(parts[1]);
-                String description = parts[2];
-                String vendor = parts[3];
-                double amount = Double.parseDouble(parts[4]);
 
-                // Add valid transaction to the list
-                Transaction transaction = new Transaction(date, time, description, vendor, amount);
-                transactions.add(transaction);
+    // Method: importTransactions
+    // Description: Validates, deduplicates and appends rows from a stream without any prompts.
+    // Amounts follow the same signs as the menu: positive for deposits, negative for payments,
+    // so a zero amount is rejected. Rows that already exist (same date, time, description,
+    // vendor and amount) are skipped. Rows are handled in large batches: each batch is checked
+    // against the latest view, appended and published as one unit and written to the CSV file
+    // as one group commit.
+    public static ImportResult importTransactions(InputStream in) throws IOException {
+        Metrics.Timer timer = IMPORT.start();
+        ImportResult result = new ImportResult();
+
+        // Parse everything into a separate store first; malformed lines are counted there
+        TransactionStore staged = new TransactionStore();
+        TransactionParser parser = new TransactionParser();
+        parser.parse(in, staged);
+        result.recordInvalid(parser.getBadLineCount(), parser.getFirstBadLine());
+        PARSE_ERRORS.add(parser.getBadLineCount());
+
+        addStaged(staged, result, true);
+        IMPORT_DUPLICATES.add(result.getDuplicates());
+        result.setElapsedNanos(timer.stop(staged.size()));
+        return result;
+    }
+
+
+    // Method: addStaged
+    // Description: Adds parsed rows to the ledger the way importTransactions does: invalid rows and rows
+    // the ledger already has are counted in the result and skipped, the rest are appended and published
+    // in batches. With save, each batch is also written to the transaction files and this waits until
+    // it is; without, the rows are already in transactions.csv (see addFollowed) and are taken as the
+    // CSV loader takes them, so a zero amount is only invalid in an import. Each batch is checked,
+    // added and queued for writing under IMPORT_LOCK, against the latest view.
+    static void addStaged(TransactionStore staged, ImportResult result, boolean save) {
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (int batchStart = 0; batchStart < staged.size(); batchStart += IMPORT_BATCH_SIZE) {
+            int batchEnd = Math.min(staged.size(), batchStart + IMPORT_BATCH_SIZE);
+            // Duplicates can only be found among loaded rows, so load the months of the batch first
+            int firstDay = Integer.MAX_VALUE;
+            int lastDay = Integer.MIN_VALUE;
+            for (int i = batchStart; i < batchEnd; i++) {
+                firstDay = Math.min(firstDay, staged.getEpochDay(i));
+                lastDay = Math.max(lastDay, staged.getEpochDay(i));
+            }
+            ensureMonthsLoaded(LocalDate.ofEpochDay(firstDay), LocalDate.ofEpochDay(lastDay));
+            IMPORT_LOCK.lock();
+            try {
+                // Ids of the staged descriptions and vendors in the view, or -1 for values it does not have yet
+                LedgerView view = ledger.view();
+                int[] descriptionMap = TransactionStore.lookup(staged.getDescriptions(), view.getStore().getDescriptions());
+                int[] vendorMap = TransactionStore.lookup(staged.getVendors(), view.getStore().getVendors());
+
+                IntList batchRows = new IntList(batchEnd - batchStart);
+                // Staged rows of the batch by date and time, until the batch is published
+                HashMap<Long, IntList> batchByTime = new HashMap<>();
+
+                for (int i = batchStart; i < batchEnd; i++) {
+                    if (save && staged.getAmountCents(i) == 0) {
+                        result.recordInvalid(1, 0);
+                        continue;
+                    }
+                    long time = (long) staged.getEpochDay(i) * 86400 + staged.getSecondOfDay(i);
+                    if (isDuplicate(view, staged, i, descriptionMap[staged.getDescriptionId(i)],
+                            vendorMap[staged.getVendorId(i)], batchByTime.get(time))) {
+                        result.recordDuplicate();
+                        continue;
+                    }
+
+                    batchRows.add(i);
+                    batchByTime.computeIfAbsent(time, key -> new IntList(1)).add(i);
+                    result.recordImported();
+                }
+
+                // Add the whole batch to the ledger at once and write it as one unit
+                if (batchRows.size() > 0) {
+                    ledger.appendAll(staged, batchRows);
+                    ledger.publish();
+                    if (save) {
+                        saves.add(saveRows(staged, batchRows));
+                    }
+                }
+            } finally {
+                IMPORT_LOCK.unlock();
             }
+        }
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).join();
+    }
 
-            reader.close();
 
-        } catch (Exception e) {
-            System.out.println("Error reading file");
+    // Method: addFollowed
+    // Description: Adds rows that other programs appended to transactions.csv, for CsvFollower, and
+    // returns how many were added. Like the CSV loader, it takes every valid line as a transaction,
+    // even one with a zero amount or the same values as another row. Only rows of a replaced file read
+    // again (mayRepeat) are checked against the ledger, and those it already has are skipped.
+    static long addFollowed(TransactionStore staged, boolean mayRepeat) {
+        if (mayRepeat) {
+            ImportResult result = new ImportResult();
+            addStaged(staged, result, false);
+            return result.getImported();
+        }
+        IntList rows = new IntList(Math.max(staged.size(), 1));
+        for (int row = 0; row < staged.size(); row++) {
+            rows.add(row);
         }
+        ledger.appendAll(staged, rows);
+        ledger.publish();
+        return staged.size();
+    }
+
+
+    // Method: isDuplicate
+    // Description: Checks whether a staged row is already in the view or earlier in the current batch.
+    // descriptionId and vendorId are the row's ids in the view, or -1 if the view does not have the value.
+    // The date index narrows the check to rows with the same date and time.
+    private static boolean isDuplicate(LedgerView view, TransactionStore staged, int row, int descriptionId,
+                                       int vendorId, IntList batchRowsAtTime) {
+        long cents = staged.getAmountCents(row);
+        // A description or vendor the view has never seen cannot be part of an existing row
+        if (descriptionId >= 0 && vendorId >= 0) {
+            TransactionStore existing = view.getStore();
+            DateIndex dateIndex = view.getDateIndex();
+            int to = dateIndex.upperBound(staged.getEpochDay(row), staged.getSecondOfDay(row));
+            for (int i = dateIndex.lowerBound(staged.getEpochDay(row), staged.getSecondOfDay(row)); i < to; i++) {
+                int existingRow = dateIndex.rowAt(i);
+                if (existing.getAmountCents(existingRow) == cents
+                        && existing.getDescriptionId(existingRow) == descriptionId
+                        && existing.getVendorId(existingRow) == vendorId) {
+                    return true;
+                }
+            }
+        }
+        // Rows of the current batch are only in the view once the batch is published
+        for (int i = 0; batchRowsAtTime != null && i < batchRowsAtTime.size(); i++) {
+            int batchRow = batchRowsAtTime.get(i);
+            if (staged.getAmountCents(batchRow) == cents
+                    && staged.getDescriptionId(batchRow) == staged.getDescriptionId(row)
+                    && staged.getVendorId(batchRow) == staged.getVendorId(row)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 
@@ -113,18 +749,17 @@ public class FinancialTracker {
             String vendor = scanner.nextLine();
 
             System.out.println("Enter amount: ");
-            double amount = Double.parseDouble(scanner.nextLine());
+            long amountCents = Money.parseCents(scanner.nextLine());
 
-            if (amount <= 0) {
+            if (amountCents <= 0) {
                 System.out.println("Amount must be positive.");
                 return;
             }
 
-            Transaction deposit = new Transaction(date, time, description, vendor, amount);
-            transactions.add(deposit);
-            saveTransaction(deposit);
-
-            System.out.println("Deposit added successfully!");
+            Transaction deposit = new Transaction(date, time, description, vendor, amountCents);
+            if (awaitSaved(recordTransaction(deposit))) {
+                System.out.println("Deposit added successfully!");
+            }
         } catch (Exception e) {
             System.out.println("Invalid input. Try again.");
         }
@@ -148,48 +783,115 @@ public class FinancialTracker {
             String vendor = scanner.nextLine();
 
             System.out.println("Enter amount: ");
-            double amount = Double.parseDouble(scanner.nextLine());
+            long amountCents = Money.parseCents(scanner.nextLine());
 
-            if (amount <= 0) {
+            if (amountCents <= 0) {
                 System.out.println("Amount must be positive.");
                 return;
             }
 
             // Turn it into a negative payment
-            amount = -amount;
+            amountCents = -amountCents;
 
-            Transaction payment = new Transaction(date, time, description, vendor, amount);
-            transactions.add(payment);
-            saveTransaction(payment);
-
-            System.out.println("Payment added successfully!");
+            Transaction payment = new Transaction(date, time, description, vendor, amountCents);
+            if (awaitSaved(recordTransaction(payment))) {
+                System.out.println("Payment added successfully!");
+            }
         } catch (Exception e) {
             System.out.println("Invalid input. Try again.");
         }
     }
 
 
+    // Method: recordTransaction
+    // Description: Adds a new transaction to the ledger and publishes it, then queues it for the CSV file.
+    // The returned future completes once the row is durable.
+    private static CompletableFuture<Void> recordTransaction(Transaction transaction) {
+        // A month's partition is loaded before rows are added to it, so the new row is not loaded twice
+        ensureMonthsLoaded(transaction.getDate(), transaction.getDate());
+        ledger.append(transaction);
+        ledger.publish();
+        return saveTransaction(transaction);
+    }
+
+
     // Method: saveTransaction
-    // Description: Saves a new transaction into the CSV file.
-    private static void saveTransaction(Transaction transaction) {
-        try {
+    // Description: Hands a new transaction to the append log for the CSV file.
+    static CompletableFuture<Void> saveTransaction(Transaction transaction) {
+        Metrics.Timer timer = SAVE.start();
+        CompletableFuture<Void> saved;
+        if (partitions != null) {
+            try {
+                saved = partitions.append(transaction.getDate(), toCsvLine(transaction));
+            } catch (IOException e) {
+                saved = CompletableFuture.failedFuture(e);
+            }
+        } else {
+            saved = appendLog.append(toCsvLine(transaction));
+        }
+        return timed(saved, timer, 1);
+    }
 
-            FileWriter fileWriter = new FileWriter(FILE_NAME, true);
-            BufferedWriter writer = new BufferedWriter(fileWriter);
-            writer.write(
-                    transaction.getDate() + "|" +
-                            transaction.getTime() + "|" +
-                            transaction.getDescription() + "|" +
-                            transaction.getVendor() + "|" +
-                            transaction.getAmount() + "\n"
-            );
-            writer.close();
-        } catch (Exception e) {
+
+    // Method: saveRows
+    // Description: Hands rows of a store to the append log as one group commit,
+    // or with --data-dir to the files of their months, one group commit per month.
+    private static CompletableFuture<Void> saveRows(TransactionStore store, IntList rows) {
+        Metrics.Timer timer = SAVE.start();
+        if (partitions != null) {
+            try {
+                return timed(partitions.append(store, rows, row -> toCsvLine(store.get(row))), timer, rows.size());
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                lines.append('\n');
+            }
+            lines.append(toCsvLine(store.get(rows.get(i))));
+        }
+        return timed(appendLog.append(lines.toString()), timer, rows.size());
+    }
+
+
+    // Method: timed
+    // Description: Stops the save timer and counts the rows once a save is durable (or has failed).
+    private static CompletableFuture<Void> timed(CompletableFuture<Void> saved, Metrics.Timer timer, int rows) {
+        return saved.whenComplete((ignored, error) -> {
+            timer.stop(rows);
+            if (error == null) {
+                ROWS_SAVED.add(rows);
+            }
+        });
+    }
+
+
+    // Method: awaitSaved
+    // Description: Waits until a saved transaction is durable. Returns false and reports if writing failed.
+    private static boolean awaitSaved(CompletableFuture<Void> saved) {
+        try {
+            saved.join();
+            return true;
+        } catch (CompletionException e) {
             System.out.println("Error writing to file");
+            return false;
         }
     }
 
 
+    // Method: toCsvLine
+    // Description: Formats a transaction as one pipe-delimited line of the CSV file.
+    private static String toCsvLine(Transaction transaction) {
+        return transaction.getDate().format(DATE_FORMATTER) + "|" +
+                transaction.getTime().format(TIME_FORMATTER) + "|" +
+                transaction.getDescription() + "|" +
+                transaction.getVendor() + "|" +
+                Money.toString(transaction.getAmountCents());
+    }
+
+
     // Method: ledgerMenu
     // Description: Displays the Ledger options to the user (All, Deposits, Payments, Reports, Home).
     private static void ledgerMenu(Scanner scanner) {
@@ -207,7 +909,7 @@ public class FinancialTracker {
 
             switch (input.toUpperCase()) {
                 case "A":
-                    displayLedger();
+                    displayLedger(scanner, LEDGER_PAGE_SIZE);
                     break;
                 case "D":
                     displayDeposits();
@@ -229,45 +931,78 @@ public class FinancialTracker {
     }
 
     // Method: displayLedger
-    // Description: Displays all transactions
-    private static void displayLedger() {
-        System.out.printf("%-12s %-10s %-20s %-20s %10s%n", "Date", "Time", "Description", "Vendor", "Amount");
-        System.out.println("------------------------------------------------------------------------------------------");
-
-        //Loop through the transactions list in reverse order to display the newest entries first
-        for (int i = transactions.size() - 1; i >= 0; i--) {
-            System.out.println(transactions.get(i));
+    // Description: Displays all transactions, pageSize rows at a time.
+    // After each page the user can show the next page, all the rest, or stop.
+    static void displayLedger(Scanner scanner, int pageSize) {
+        ensureLoaded(null, null);
+        // Read one published view of the ledger, so the report is consistent while rows are added
+        LedgerView view = ledger.view();
+        TransactionStore transactions = view.getStore();
+        DateIndex dateIndex = view.getDateIndex();
+
+        LedgerRenderer renderer = new LedgerRenderer(transactions, System.out);
+        renderer.header();
+        int pageEnd = pageSize;
+
+        //Walk the date index backwards to display the newest entries first
+        for (int i = dateIndex.size() - 1; i >= 0; i--) {
+            if (renderer.getRowCount() == pageEnd) {
+                renderer.flush();
+                System.out.printf("Showing %d of %d. Press Enter for more, A for all, or Q to stop: ",
+                        renderer.getRowCount(), dateIndex.size());
+                String input = scanner.nextLine().trim();
+                if (input.equalsIgnoreCase("Q")) {
+                    return;
+                }
+                pageEnd = input.equalsIgnoreCase("A") ? Integer.MAX_VALUE : pageEnd + pageSize;
+            }
+            renderer.row(dateIndex.rowAt(i));
         }
-
+        renderer.flush();
     }
     
     // Method: displayDeposits
     // Description: Displays only deposits
     private static void displayDeposits() {
+        Metrics.Timer timer = REPORT_DEPOSITS.start();
+        ensureLoaded(null, null);
+        LedgerView view = ledger.view();
+        TransactionStore transactions = view.getStore();
+
         // This method displays only deposits of amount greater than zero
-        System.out.printf("%-12s %-10s %-20s %-20s %10s%n", "Date", "Time", "Description", "Vendor", "Amount");
-        System.out.println("------------------------------------------------------------------------------------------");
+        LedgerRenderer renderer = new LedgerRenderer(transactions, System.out);
+        renderer.header();
 
-        for (Transaction transaction : transactions) {
-            if (transaction.getAmount() > 0) {
-                System.out.println(transaction.toString());
+        // Only the amount column is scanned, rows are formatted just for the ones printed
+        for (int row = 0; row < transactions.size(); row++) {
+            if (transactions.getAmountCents(row) > 0) {
+                renderer.row(row);
             }
         }
+        renderer.flush();
+        timer.stop(renderer.getRowCount());
     }
 
 
     // Method: displayPayments
     // Description: Displays only payments
     private static void displayPayments() {
+        Metrics.Timer timer = REPORT_PAYMENTS.start();
+        ensureLoaded(null, null);
+        LedgerView view = ledger.view();
+        TransactionStore transactions = view.getStore();
+
         // This method displays only payments (amount < 0).
-        System.out.printf("%-12s %-10s %-20s %-20s %10s%n", "Date", "Time", "Description", "Vendor", "Amount");
-        System.out.println("------------------------------------------------------------------------------------------");
+        LedgerRenderer renderer = new LedgerRenderer(transactions, System.out);
+        renderer.header();
 
-        for (Transaction transaction : transactions) {
-            if (transaction.getAmount() < 0) {
-                System.out.println(transaction.toString());
+        for (int row = 0; row < transactions.size(); row++) {
+            if (transactions.getAmountCents(row) < 0) {
+                renderer.row(row);
             }
         }
+        renderer.flush();
+        timer.stop(renderer.getRowCount());
     }
 
 
@@ -343,44 +1078,78 @@ public class FinancialTracker {
 
     // Method: filterTransactionsByDate
     // Description: Filters and displays transactions between startDate and endDate.
-    private static void filterTransactionsByDate(LocalDate startDate, LocalDate endDate) {
-        System.out.printf("%-12s %-10s %-20s %-20s %10s%n", "Date", "Time", "Description", "Vendor", "Amount");
-        System.out.println("------------------------------------------------------------------------------------------");
+    static void filterTransactionsByDate(LocalDate startDate, LocalDate endDate) {
+        Metrics.Timer timer = REPORT_DATE.start();
+        // Only the months of the range are read; with --data-dir the others stay on disk
+        ensureLoaded(startDate, endDate);
+        LedgerView view = ledger.view();
+        TransactionStore transactions = view.getStore();
+        DateIndex dateIndex = view.getDateIndex();
+        LedgerRollup rollup = view.getRollup();
+
+        LedgerRenderer renderer = new LedgerRenderer(transactions, System.out);
+        renderer.header();
         boolean matchfound = false;
-        for (Transaction transaction : transactions) {
-            //The transaction's date is on or after the start date and on or before the end date
-            if (!transaction.getDate().isBefore(startDate) && !transaction.getDate().isAfter(endDate)) {
-                System.out.println(transaction.toString());
-                matchfound = true;
-            }
+        //Binary search the date index for the first position on or after the start date
+        //and the first position after the end date; every row in between is a match
+        int from = dateIndex.lowerBound((int) startDate.toEpochDay());
+        int to = dateIndex.upperBound((int) endDate.toEpochDay());
+        for (int i = from; i < to; i++) {
+            renderer.row(dateIndex.rowAt(i));
+            matchfound = true;
         }
+        renderer.flush();
+        timer.stop(renderer.getRowCount());
         if (!matchfound) {
             System.out.println("No transactions found in the given date range.");
+        } else {
+            printTotals(rollup.between(startDate, endDate));
         }
     }
 
     // Method: filterTransactionsByVendor
     // Description: Filters and displays transactions matching the given vendor name.
-    private static void filterTransactionsByVendor(String vendor) {
-        boolean found = false;
-        System.out.printf("%-12s %-10s %-20s %-20s %10s%n", "Date", "Time", "Description", "Vendor", "Amount");
-        System.out.println("------------------------------------------------------------------------------------------");
+    static void filterTransactionsByVendor(String vendor) {
+        Metrics.Timer timer = REPORT_VENDOR.start();
+        ensureVendorLoaded(vendor);
+        LedgerView view = ledger.view();
+        TransactionStore transactions = view.getStore();
+        TextIndex vendorIndex = view.getVendorIndex();
+        LedgerRollup rollup = view.getRollup();
 
-        for (Transaction transaction : transactions) {
-            if (transaction.getVendor().equalsIgnoreCase(vendor)) {
-                System.out.println(transaction.toString());
-                found = true;
-            }
+        boolean found = false;
+        LedgerRenderer renderer = new LedgerRenderer(transactions, System.out);
+        renderer.header();
+
+        // Look up the vendor's rows in the vendor index instead of comparing every row
+        IntList vendorIds = vendorIndex.exactIds(vendor);
+        IntList rows = vendorIndex.rows(vendorIds);
+        for (int i = 0; i < rows.size(); i++) {
+            renderer.row(rows.get(i));
+            found = true;
         }
+        renderer.flush();
+        timer.stop(rows.size());
         if (!found) {
             System.out.println("No transactions found for vendor: " + vendor);
+        } else {
+            printTotals(rollup.forVendors(vendorIds));
         }
     }
 
+    // Method: printTotals
+    // Description: Prints the deposit, payment and net totals under a report.
+    private static void printTotals(LedgerRollup.Totals totals) {
+        System.out.println("------------------------------------------------------------------------------------------");
+        System.out.printf("%d transactions   Deposits: %s   Payments: %s   Net: %s%n",
+                totals.getCount(), Money.toString(totals.getDepositCents()),
+                Money.toString(totals.getPaymentCents()), Money.toString(totals.getNetCents()));
+    }
+
     // Challenge
     // Method: customSearch
     // Description: Filters and displays transactions given the custom input by user
-    private static void customSearch(Scanner scanner){
+    static void customSearch(Scanner scanner){
         System.out.print("Start Date(yyyy-mm-dd): ");
         String startDatestring = scanner.nextLine();
         // If the user input is empty, set startDate to null.
@@ -401,41 +1170,47 @@ public class FinancialTracker {
 
         System.out.print("Amount: ");
         String amountString = scanner.nextLine();
-        Double amount = amountString.isEmpty() ? null: Double.parseDouble(amountString);
+        Long amountCents = amountString.isEmpty() ? null: Money.parseCents(amountString);
 
-        boolean found = false;
-        System.out.printf("%-12s %-10s %-20s %-20s %10s%n", "Date", "Time", "Description", "Vendor", "Amount");
-        System.out.println("------------------------------------------------------------------------------------------");
-        for (Transaction transaction : transactions) {
-            boolean match = true;
-
-            // Checks whether the string startDatestring is empty using .isEmpty().
-            // If it is empty, it sets startDate to null.
-            // If it is not empty, it parses the string into a LocalDate using the specified DATE_FORMATTER.
-            if (startDate != null && transaction.getDate().isBefore(startDate)) match = false;
-            // Checks if endDate is not null and whether the transaction's date is after the given endDate.
-            // If both conditions are true, it sets match to false, so this transaction does not fall within the valid range
-            if (endDate != null && transaction.getDate().isAfter(endDate)) match = false;
-            // If the user entered a description, check if the transaction's description contains it
-            if (!description.isEmpty() && !transaction.getDescription().toLowerCase().contains(description.toLowerCase()))
-                match = false;
-            // Checks if the user entered a vendor name
-            // If a vendor is provided, it compares the vendor input to the transaction list to the input
-            if (!vendor.isEmpty() && !transaction.getVendor().toLowerCase().contains(vendor.toLowerCase()))
-                match = false;
-            // If an amount is provided, compares it to the transaction’s amount
-            if (amount != null && transaction.getAmount() != amount) match = false;
-
-            if (match) {
-                System.out.println(transaction.toString());
-                found = true;
-            }
-        }
-    if (!found){
-        System.out.println("No transactions could be found based on your search ");
-    }
-        }
-    }
+        System.out.print("Min Amount: ");
+        String minString = scanner.nextLine();
+        Long minCents = minString.isEmpty() ? amountCents : Long.valueOf(Money.parseCents(minString));
 
+        System.out.print("Max Amount: ");
+        String maxString = scanner.nextLine();
+        Long maxCents = maxString.isEmpty() ? amountCents : Long.valueOf(Money.parseCents(maxString));
 
+        // An exact amount is a range of one amount, inside any min and max that were also entered
+        if (amountCents != null) {
+            minCents = Math.max(minCents, amountCents);
+            maxCents = Math.min(maxCents, amountCents);
+        }
 
+        System.out.print("Largest (how many, biggest amounts first): ");
+        String limitString = scanner.nextLine();
+        int limit = limitString.isEmpty() ? 0 : Integer.parseInt(limitString);
+
+        // Search one published view of the ledger, so the results are consistent while rows are added
+        // Timed from here, so the time does not include typing the criteria
+        Metrics.Timer timer = REPORT_SEARCH.start();
+        TransactionQuery query = new TransactionQuery(startDate, endDate, description, vendor, minCents, maxCents, limit);
+        ensureLoaded(query);
+        LedgerView view = ledger.view();
+        QueryPlan plan = query.plan(view);
+        IntList rows = plan.execute();
+
+        LedgerRenderer renderer = new LedgerRenderer(view.getStore(), System.out);
+        renderer.header();
+        for (int i = 0; i < rows.size(); i++) {
+            renderer.row(rows.get(i));
+        }
+        renderer.flush();
+        timer.stop(rows.size());
+        if (rows.size() == 0) {
+            System.out.println("No transactions could be found based on your search ");
+        }
+        if (explainSearches) {
+            System.out.println(plan.explain());
+        }
+    }
+}
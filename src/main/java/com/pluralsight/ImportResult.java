@@ -0,0 +1,77 @@
+package com.pluralsight;
+
+
+// Class: ImportResult
+// Description: Counts and timing of one bulk import, printed at the end of a batch ingest.
+public class ImportResult {
+    private long imported;
+    private long duplicates;
+    private long invalid;
+    private long firstInvalidLine;
+    private long elapsedNanos;
+
+
+    // Method: recordInvalid
+    // Description: Counts invalid rows, remembering the first bad line number seen.
+    void recordInvalid(long count, long firstLine) {
+        if (count > 0 && (firstInvalidLine == 0 || (firstLine > 0 && firstLine < firstInvalidLine))) {
+            firstInvalidLine = firstLine;
+        }
+        invalid += count;
+    }
+
+    void recordImported() {
+        imported++;
+    }
+
+    void recordDuplicate() {
+        duplicates++;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+
+    // Getter Methods
+    // Description: Return the import statistics.
+    public long getImported() {
+        return imported;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public long getFirstInvalidLine() {
+        return firstInvalidLine;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Method: getRowsPerSecond
+    // Description: Returns how many input rows were processed per second.
+    public long getRowsPerSecond() {
+        long rows = imported + duplicates + invalid;
+        return elapsedNanos == 0 ? rows : rows * 1_000_000_000L / elapsedNanos;
+    }
+
+
+    // Method: toString
+    // Description: Summarizes the import on one line.
+    @Override
+    public String toString() {
+        String summary = String.format("Imported %d transactions, skipped %d duplicate(s) and %d invalid row(s) in %d ms (%d rows/sec)",
+                imported, duplicates, invalid, elapsedNanos / 1_000_000, getRowsPerSecond());
+        if (invalid > 0 && firstInvalidLine > 0) {
+            summary += ", first invalid line: " + firstInvalidLine;
+        }
+        return summary;
+    }
+}
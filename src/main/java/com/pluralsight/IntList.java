@@ -0,0 +1,112 @@
+package com.pluralsight;
+
+import java.util.Arrays;
+
+
+// Class: IntList
+// Description: A growable list of primitive ints, used for posting lists of row numbers and ids
+// without boxing every entry into an Integer.
+public class IntList {
+    private int[] values;
+    private int size;
+
+
+    // Constructor: IntList
+    // Description: Creates an empty list with a small starting capacity.
+    public IntList() {
+        this(4);
+    }
+
+    // Constructor: IntList
+    // Description: Creates an empty list with the given starting capacity.
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    // Constructor: IntList
+    // Description: Wraps the first size values of an existing array without copying it.
+    IntList(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+
+    // Method: snapshot
+    // Description: Returns a read-only view of the values added so far, sharing this list's array.
+    // Later adds go past the view's size or into a new array, so the view never changes.
+    public IntList snapshot() {
+        return new IntList(values, size);
+    }
+
+
+    // Method: add
+    // Description: Appends a value to the end of the list.
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+
+    // Method: addAll
+    // Description: Appends every value of another list.
+    public void addAll(IntList other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+
+    // Method: get
+    // Description: Returns the value at an index.
+    public int get(int index) {
+        return values[index];
+    }
+
+
+    // Method: last
+    // Description: Returns the last value, or -1 if the list is empty.
+    public int last() {
+        return size == 0 ? -1 : values[size - 1];
+    }
+
+
+    // Method: size
+    // Description: Returns the number of values.
+    public int size() {
+        return size;
+    }
+
+
+    // Method: sort
+    // Description: Sorts the values in ascending order.
+    public void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+
+    // Method: intersect
+    // Description: Returns the values found in both sorted lists, in ascending order.
+    public static IntList intersect(IntList a, IntList b) {
+        IntList result = new IntList(Math.min(a.size, b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            int x = a.values[i];
+            int y = b.values[j];
+            if (x == y) {
+                result.add(x);
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,245 @@
+package com.pluralsight;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+// Class: Ledger
+// Description: The in-memory ledger shared by every thread: the transaction store, its indexes and totals.
+// Writers append to one of several stripes, each an append-only segment with its own lock and
+// its own dictionaries, so writers on different threads rarely wait for each other.
+// publish() drains the stripes into the main store, updates the indexes and totals, and publishes
+// an immutable LedgerView. Readers take the current view with view() and read it without any lock;
+// a report therefore sees one consistent ledger even while rows are being added.
+public class Ledger {
+    private static final Metrics.Histogram PUBLISH = Metrics.histogram("tracker_publish_seconds", "",
+            "Time to index appended rows and publish a new view of the ledger");
+
+    // The main store, indexes and totals; only changed while holding publishLock
+    private final TransactionStore store = new TransactionStore();
+    private final DateIndex dateIndex = new DateIndex(store);
+    private final AmountIndex amountIndex = new AmountIndex(store);
+    private final TextIndex vendorIndex = new TextIndex(store.getVendors());
+    private final TextIndex descriptionIndex = new TextIndex(store.getDescriptions());
+    private final LedgerRollup rollup = new LedgerRollup(store);
+    // Rows of the store already added to the text indexes and totals
+    private int indexedRows;
+
+    private final Stripe[] stripes;
+    private final ReentrantLock publishLock = new ReentrantLock();
+    // Rows appended to the stripes so far, and how many of those the current view holds
+    private final AtomicLong appendedCount = new AtomicLong();
+    private volatile long publishedCount;
+    private volatile LedgerView view;
+
+
+    // Constructor: Ledger
+    // Description: Creates an empty ledger with one stripe per available core.
+    public Ledger() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+
+    // Constructor: Ledger
+    // Description: Creates an empty ledger with the given number of writer stripes.
+    public Ledger(int stripeCount) {
+        stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        view = snapshot();
+    }
+
+
+    // Method: view
+    // Description: Returns the latest published view. It never changes, so it can be read without locks.
+    public LedgerView view() {
+        return view;
+    }
+
+
+    // Method: append
+    // Description: Appends one transaction to the calling thread's stripe.
+    // Readers see it after the next publish().
+    public void append(Transaction transaction) {
+        Stripe stripe = stripe();
+        stripe.lock.lock();
+        try {
+            stripe.rows.add(transaction);
+        } finally {
+            stripe.lock.unlock();
+        }
+        appendedCount.incrementAndGet();
+    }
+
+
+    // Method: appendAll
+    // Description: Appends the given rows of another store to the calling thread's stripe as one unit.
+    // Readers see them after the next publish().
+    public void appendAll(TransactionStore source, IntList rows) {
+        Stripe stripe = stripe();
+        stripe.lock.lock();
+        try {
+            TransactionStore target = stripe.rows;
+            int[] descriptionMap = TransactionStore.remap(source.getDescriptions(), target.getDescriptions());
+            int[] vendorMap = TransactionStore.remap(source.getVendors(), target.getVendors());
+            for (int i = 0; i < rows.size(); i++) {
+                int row = rows.get(i);
+                target.add(source.getEpochDay(row), source.getSecondOfDay(row), source.getAmountCents(row),
+                        descriptionMap[source.getDescriptionId(row)], vendorMap[source.getVendorId(row)]);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        appendedCount.addAndGet(rows.size());
+    }
+
+
+    // Method: publish
+    // Description: Makes every row appended before this call visible in a new view.
+    // Threads that publish at the same time share the work: the one holding the lock drains every
+    // stripe, and the others then find their rows already published and return.
+    public void publish() {
+        long target = appendedCount.get();
+        if (publishedCount >= target) {
+            return;
+        }
+        publishLock.lock();
+        try {
+            if (publishedCount < target) {
+                Metrics.Timer timer = PUBLISH.start();
+                // Every append counted here finished adding to its stripe before it was counted
+                long appended = appendedCount.get();
+                drainStripes();
+                view = snapshot();
+                timer.stop(appended - publishedCount);
+                publishedCount = appended;
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+
+    // Method: store
+    // Description: Returns the main store, for loading the ledger in bulk at start-up.
+    // Bulk loads must finish, followed by indexLoadedRows(), before other threads use the ledger.
+    TransactionStore store() {
+        return store;
+    }
+
+
+    // Method: dateIndex
+    // Description: Returns the main date index, for restoring it from a snapshot at start-up.
+    DateIndex dateIndex() {
+        return dateIndex;
+    }
+
+
+    // Method: amountIndex
+    // Description: Returns the main amount index, for restoring it from a snapshot at start-up.
+    AmountIndex amountIndex() {
+        return amountIndex;
+    }
+
+
+    // Method: indexLoadedRows
+    // Description: Indexes the rows loaded straight into store() and publishes them.
+    void indexLoadedRows() {
+        publishLock.lock();
+        try {
+            if (dateIndex.size() == 0) {
+                dateIndex.rebuild();
+            } else {
+                dateIndex.addAll(rowsFrom(dateIndex.size()));
+            }
+            if (amountIndex.size() == 0) {
+                amountIndex.rebuild();
+            } else {
+                amountIndex.addAll(rowsFrom(amountIndex.size()));
+            }
+            indexRows();
+            view = snapshot();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+
+    // Method: drainStripes
+    // Description: Moves the rows of every stripe into the main store and indexes them.
+    // Each stripe is locked only long enough to swap in an empty segment.
+    private void drainStripes() {
+        int firstNewRow = store.size();
+        for (Stripe stripe : stripes) {
+            TransactionStore rows;
+            stripe.lock.lock();
+            try {
+                rows = stripe.rows;
+                if (rows.size() == 0) {
+                    continue;
+                }
+                stripe.rows = new TransactionStore();
+            } finally {
+                stripe.lock.unlock();
+            }
+            store.addAll(rows);
+        }
+        IntList newRows = rowsFrom(firstNewRow);
+        dateIndex.addAll(newRows);
+        amountIndex.addAll(newRows);
+        indexRows();
+    }
+
+
+    // Method: indexRows
+    // Description: Adds the rows not yet in the text indexes and totals.
+    private void indexRows() {
+        for (int row = indexedRows; row < store.size(); row++) {
+            vendorIndex.add(row, store.getVendorId(row));
+            descriptionIndex.add(row, store.getDescriptionId(row));
+            rollup.add(row);
+        }
+        indexedRows = store.size();
+    }
+
+
+    // Method: rowsFrom
+    // Description: Returns the row numbers from firstRow to the end of the store.
+    private IntList rowsFrom(int firstRow) {
+        IntList rows = new IntList(Math.max(store.size() - firstRow, 1));
+        for (int row = firstRow; row < store.size(); row++) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+
+    // Method: snapshot
+    // Description: Builds an immutable view of the main store, indexes and totals as they are now.
+    // Every part shares what did not change with the previous view, so a view costs O(rows added).
+    private LedgerView snapshot() {
+        TransactionStore storeSnapshot = store.snapshot();
+        return new LedgerView(storeSnapshot,
+                dateIndex.snapshot(storeSnapshot),
+                amountIndex.snapshot(storeSnapshot),
+                vendorIndex.snapshot(storeSnapshot.getVendors()),
+                descriptionIndex.snapshot(storeSnapshot.getDescriptions()),
+                rollup.snapshot(storeSnapshot));
+    }
+
+
+    // Method: stripe
+    // Description: Picks the stripe for the calling thread, so one thread keeps appending to the same segment.
+    private Stripe stripe() {
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+
+    // Class: Stripe
+    // Description: One append-only segment of new rows, with its own lock and dictionaries.
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private TransactionStore rows = new TransactionStore();
+    }
+}
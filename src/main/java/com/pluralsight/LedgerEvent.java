@@ -0,0 +1,26 @@
+package com.pluralsight;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+// Class: LedgerEvent
+// Description: A Java Flight Recorder event for one timed load, save, report or search, committed by
+// Metrics.Timer. Start the program with -XX:StartFlightRecording to record them; when nothing is
+// recording, the event costs next to nothing.
+@Name("com.pluralsight.LedgerOperation")
+@Label("Ledger Operation")
+@Category("Financial Tracker")
+@Description("A timed load, save, report or search of the ledger")
+@StackTrace(false)
+class LedgerEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    long rows;
+}
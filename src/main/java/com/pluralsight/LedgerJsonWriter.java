@@ -0,0 +1,250 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+
+// Class: LedgerJsonWriter
+// Description: Streams rows of a TransactionStore as one JSON document:
+//   {"transactions":[{"date":"2025-01-31","time":"09:15:00","description":"...","vendor":"...","amount":-4.75},...],
+//    "count":2,"totals":{...}}
+// Like LedgerRenderer, rows are formatted straight from the columns into a reusable char buffer
+// that is written out in blocks, so a response of any size is sent while it is being produced.
+// offset and limit select a page of the rows passed to row().
+public class LedgerJsonWriter {
+    private static final int BUFFER_SIZE = 32 * 1024;
+    // Longest row without its two text values: keys, punctuation, date, time and amount
+    private static final int FIXED_LENGTH = 128;
+
+    private final TransactionStore store;
+    private final Writer out;
+    private final int offset;
+    private final int limit;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int length;
+    private int skipped;
+    private int written;
+
+    // Rows are mostly written in date order, so the text of the last date is kept
+    private int lastDay = Integer.MIN_VALUE;
+    private String lastDate;
+
+
+    // Constructor: LedgerJsonWriter
+    // Description: Creates a writer for rows of the store that sends the rows from offset on,
+    // at most limit of them, to the stream as UTF-8.
+    public LedgerJsonWriter(TransactionStore store, OutputStream out, int offset, int limit) {
+        this.store = store;
+        this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+
+    // Method: begin
+    // Description: Starts the document and its list of transactions.
+    public void begin() {
+        append("{\"transactions\":[");
+    }
+
+
+    // Method: row
+    // Description: Writes one row if it is inside the page. Returns false once the page is full,
+    // so the caller can stop looking for more rows.
+    public boolean row(int row) {
+        if (skipped < offset) {
+            skipped++;
+            return true;
+        }
+        if (written == limit) {
+            return false;
+        }
+        String description = store.getDescriptions().get(store.getDescriptionId(row));
+        String vendor = store.getVendors().get(store.getVendorId(row));
+        // Escaping can turn one char into six
+        ensureCapacity(FIXED_LENGTH + 6 * (description.length() + vendor.length()));
+
+        if (written > 0) {
+            buffer[length++] = ',';
+        }
+        appendRaw("{\"date\":\"");
+        appendRaw(date(store.getEpochDay(row)));
+        appendRaw("\",\"time\":\"");
+        int secondOfDay = store.getSecondOfDay(row);
+        length = LedgerRenderer.appendTwoDigits(buffer, length, secondOfDay / 3600);
+        buffer[length++] = ':';
+        length = LedgerRenderer.appendTwoDigits(buffer, length, secondOfDay / 60 % 60);
+        buffer[length++] = ':';
+        length = LedgerRenderer.appendTwoDigits(buffer, length, secondOfDay % 60);
+        appendRaw("\",\"description\":");
+        appendString(description);
+        appendRaw(",\"vendor\":");
+        appendString(vendor);
+        appendRaw(",\"amount\":");
+        length = Money.append(buffer, length, store.getAmountCents(row), 0);
+        buffer[length++] = '}';
+        written++;
+        return true;
+    }
+
+
+    // Method: end
+    // Description: Closes the list, adds the count and the totals (if any) and flushes the document.
+    public void end(LedgerRollup.Totals totals) {
+        end(totals, null);
+    }
+
+
+    // Method: end
+    // Description: Closes the list, adds the count, the totals and the query plan (if any) and flushes the document.
+    public void end(LedgerRollup.Totals totals, String plan) {
+        append("],\"count\":" + written);
+        if (totals != null) {
+            append(",\"totals\":" + toJson(totals));
+        }
+        if (plan != null) {
+            append(",\"plan\":" + quote(plan));
+        }
+        append("}\n");
+        try {
+            writeBlock();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    // Method: toJson
+    // Description: Formats report totals as a JSON object.
+    public static String toJson(LedgerRollup.Totals totals) {
+        return "{\"count\":" + totals.getCount()
+                + ",\"deposits\":" + Money.toString(totals.getDepositCents())
+                + ",\"payments\":" + Money.toString(totals.getPaymentCents())
+                + ",\"net\":" + Money.toString(totals.getNetCents()) + "}";
+    }
+
+
+    // Method: toJson
+    // Description: Formats the statistics of an import as a JSON object.
+    public static String toJson(ImportResult result) {
+        return "{\"imported\":" + result.getImported()
+                + ",\"duplicates\":" + result.getDuplicates()
+                + ",\"invalid\":" + result.getInvalid()
+                + ",\"firstInvalidLine\":" + result.getFirstInvalidLine()
+                + ",\"elapsedMillis\":" + result.getElapsedNanos() / 1_000_000 + "}";
+    }
+
+
+    // Method: quote
+    // Description: Returns text as a quoted JSON string.
+    public static String quote(String text) {
+        StringBuilder builder = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String escape = escape(c);
+            if (escape == null) {
+                builder.append(c);
+            } else {
+                builder.append(escape);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+
+    // Method: date
+    // Description: Returns the yyyy-MM-dd text of a day, reusing the previous row's text when it is the same day.
+    private String date(int epochDay) {
+        if (epochDay != lastDay) {
+            lastDate = LocalDate.ofEpochDay(epochDay).toString();
+            lastDay = epochDay;
+        }
+        return lastDate;
+    }
+
+
+    // Method: appendString
+    // Description: Appends text as a quoted, escaped JSON string. Room must already be reserved.
+    private void appendString(String text) {
+        buffer[length++] = '"';
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String escape = escape(c);
+            if (escape == null) {
+                buffer[length++] = c;
+            } else {
+                appendRaw(escape);
+            }
+        }
+        buffer[length++] = '"';
+    }
+
+
+    // Method: escape
+    // Description: Returns the JSON escape for a character, or null if it can be written as it is.
+    private static String escape(char c) {
+        switch (c) {
+            case '"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            default:
+                return c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+        }
+    }
+
+
+    // Method: append
+    // Description: Appends text, making room for it first.
+    private void append(String text) {
+        ensureCapacity(text.length());
+        appendRaw(text);
+    }
+
+
+    // Method: appendRaw
+    // Description: Appends text into room that is already reserved.
+    private void appendRaw(String text) {
+        text.getChars(0, text.length(), buffer, length);
+        length += text.length();
+    }
+
+
+    // Method: ensureCapacity
+    // Description: Makes room for the next piece, writing the buffered block out first if it is full.
+    private void ensureCapacity(int needed) {
+        if (length + needed <= buffer.length) {
+            return;
+        }
+        try {
+            writeBlock();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (needed > buffer.length) {
+            buffer = new char[needed];
+        }
+    }
+
+
+    // Method: writeBlock
+    // Description: Hands the buffered characters to the output in one write.
+    private void writeBlock() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+}
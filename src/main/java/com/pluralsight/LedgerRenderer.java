@@ -0,0 +1,219 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+
+
+// Class: LedgerRenderer
+// Description: Prints ledger rows in the fixed-width layout of Transaction.toString without
+// String.format or a Transaction object per row. Rows are formatted straight from the store's
+// columns into one reusable char buffer, which is written out in large blocks instead of one
+// synchronized, auto-flushed println per row. Call flush() before printing anything else.
+public class LedgerRenderer {
+    public static final String HEADER = String.format("%-12s %-10s %-20s %-20s %10s",
+            "Date", "Time", "Description", "Vendor", "Amount");
+    public static final String RULE =
+            "------------------------------------------------------------------------------------------";
+
+    private static final int BUFFER_SIZE = 32 * 1024;
+    private static final int DATE_WIDTH = 12;
+    private static final int TIME_WIDTH = 10;
+    private static final int TEXT_WIDTH = 20;
+    private static final int AMOUNT_WIDTH = 10;
+    // Longest date, time and amount with the padded text columns and separators, without the text itself
+    private static final int FIXED_LENGTH = 20 + TIME_WIDTH + 2 * TEXT_WIDTH + 24 + 5;
+
+    private final TransactionStore store;
+    private final Writer out;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int length;
+    private int rowCount;
+
+    // Rows are mostly printed in date order, so the text of the last date is kept
+    private int lastDay = Integer.MIN_VALUE;
+    private final char[] lastDate = new char[20];
+    private int lastDateLength;
+
+
+    // Constructor: LedgerRenderer
+    // Description: Creates a renderer for rows of the store that writes to the given stream,
+    // encoding characters the way System.out does.
+    public LedgerRenderer(TransactionStore store, OutputStream out) {
+        this(store, new OutputStreamWriter(out, Charset.defaultCharset()));
+    }
+
+
+    // Constructor: LedgerRenderer
+    // Description: Creates a renderer for rows of the store that writes to the given writer.
+    public LedgerRenderer(TransactionStore store, Writer out) {
+        this.store = store;
+        this.out = out;
+    }
+
+
+    // Method: header
+    // Description: Prints the column titles and the rule under them.
+    public void header() {
+        line(HEADER);
+        line(RULE);
+    }
+
+
+    // Method: line
+    // Description: Prints one line of text.
+    public void line(String text) {
+        ensureCapacity(text.length() + 1);
+        text.getChars(0, text.length(), buffer, length);
+        length += text.length();
+        buffer[length++] = '\n';
+    }
+
+
+    // Method: row
+    // Description: Prints one row of the store.
+    public void row(int row) {
+        String description = store.getDescriptions().get(store.getDescriptionId(row));
+        String vendor = store.getVendors().get(store.getVendorId(row));
+        ensureCapacity(FIXED_LENGTH + description.length() + vendor.length() + 1);
+
+        appendDate(store.getEpochDay(row));
+        appendTime(store.getSecondOfDay(row));
+        length = appendText(buffer, length, description, TEXT_WIDTH);
+        buffer[length++] = ' ';
+        length = appendText(buffer, length, vendor, TEXT_WIDTH);
+        buffer[length++] = ' ';
+        length = Money.append(buffer, length, store.getAmountCents(row), AMOUNT_WIDTH);
+        buffer[length++] = '\n';
+        rowCount++;
+    }
+
+
+    // Method: getRowCount
+    // Description: Returns how many rows have been printed.
+    public int getRowCount() {
+        return rowCount;
+    }
+
+
+    // Method: flush
+    // Description: Writes everything buffered so far and flushes the output.
+    public void flush() {
+        try {
+            writeBlock();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    // Method: format
+    // Description: Formats a single transaction in the ledger layout, used by Transaction.toString.
+    public static String format(Transaction transaction) {
+        String date = transaction.getDate().toString();
+        String time = transaction.getTime().toString();
+        char[] chars = new char[FIXED_LENGTH + date.length() + time.length()
+                + transaction.getDescription().length() + transaction.getVendor().length()];
+        int position = appendText(chars, 0, date, DATE_WIDTH);
+        chars[position++] = ' ';
+        position = appendText(chars, position, time, TIME_WIDTH);
+        chars[position++] = ' ';
+        position = appendText(chars, position, transaction.getDescription(), TEXT_WIDTH);
+        chars[position++] = ' ';
+        position = appendText(chars, position, transaction.getVendor(), TEXT_WIDTH);
+        chars[position++] = ' ';
+        position = Money.append(chars, position, transaction.getAmountCents(), AMOUNT_WIDTH);
+        return new String(chars, 0, position);
+    }
+
+
+    // Method: appendDate
+    // Description: Appends the date column, reusing the text of the previous row's date when it is the same day.
+    private void appendDate(int epochDay) {
+        if (epochDay != lastDay) {
+            String date = LocalDate.ofEpochDay(epochDay).toString();
+            lastDateLength = date.length();
+            date.getChars(0, lastDateLength, lastDate, 0);
+            lastDay = epochDay;
+        }
+        System.arraycopy(lastDate, 0, buffer, length, lastDateLength);
+        length += lastDateLength;
+        length = pad(buffer, length, DATE_WIDTH - lastDateLength);
+        buffer[length++] = ' ';
+    }
+
+
+    // Method: appendTime
+    // Description: Appends the time column like LocalTime.toString: HH:mm, or HH:mm:ss when there are seconds.
+    private void appendTime(int secondOfDay) {
+        int start = length;
+        length = appendTwoDigits(buffer, length, secondOfDay / 3600);
+        buffer[length++] = ':';
+        length = appendTwoDigits(buffer, length, secondOfDay / 60 % 60);
+        if (secondOfDay % 60 != 0) {
+            buffer[length++] = ':';
+            length = appendTwoDigits(buffer, length, secondOfDay % 60);
+        }
+        length = pad(buffer, length, TIME_WIDTH - (length - start));
+        buffer[length++] = ' ';
+    }
+
+
+    // Method: appendText
+    // Description: Appends text left-aligned in a column; longer text is printed whole, like %-20s.
+    private static int appendText(char[] chars, int position, String text, int width) {
+        text.getChars(0, text.length(), chars, position);
+        return pad(chars, position + text.length(), width - text.length());
+    }
+
+
+    // Method: appendTwoDigits
+    // Description: Appends a number from 0 to 99 with a leading zero.
+    static int appendTwoDigits(char[] chars, int position, int value) {
+        chars[position] = (char) ('0' + value / 10);
+        chars[position + 1] = (char) ('0' + value % 10);
+        return position + 2;
+    }
+
+
+    // Method: pad
+    // Description: Appends the given number of spaces; zero or less appends nothing.
+    private static int pad(char[] chars, int position, int count) {
+        for (int i = 0; i < count; i++) {
+            chars[position++] = ' ';
+        }
+        return position;
+    }
+
+
+    // Method: ensureCapacity
+    // Description: Makes room for the next line, writing the buffered block out first if it is full.
+    private void ensureCapacity(int needed) {
+        if (length + needed <= buffer.length) {
+            return;
+        }
+        try {
+            writeBlock();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (needed > buffer.length) {
+            buffer = new char[needed];
+        }
+    }
+
+
+    // Method: writeBlock
+    // Description: Hands the buffered characters to the output in one write.
+    private void writeBlock() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.pluralsight;
+
+import java.time.LocalDate;
+
+
+// Class: LedgerRollup
+// Description: Running deposit/payment totals per day, month, year and vendor.
+// The totals are built in one pass after loading and updated as each new transaction is added,
+// so a report can show its totals without adding up its rows again.
+// They are kept in VersionedIntMaps and copied on write: a Totals object is only changed during the
+// version that created it, and a snapshot shares every one of them. Publishing a snapshot is O(1),
+// and the next rows copy only the Totals they add to.
+public class LedgerRollup {
+    private final TransactionStore store;
+
+    private final VersionedIntMap<Totals> byDay;
+    private final VersionedIntMap<Totals> byMonth;
+    private final VersionedIntMap<Totals> byYear;
+    // Vendor ids are dense, so vendor totals are keyed directly by id
+    private final VersionedIntMap<Totals> byVendor;
+
+    // Incremented by every snapshot; only Totals created in the current version are changed in place
+    private int version;
+
+    // Rows are mostly in date order, so the totals of the last day seen are cached
+    private int lastDay = Integer.MIN_VALUE;
+    private Totals lastDayTotals;
+    private Totals lastMonthTotals;
+    private Totals lastYearTotals;
+
+
+    // Constructor: LedgerRollup
+    // Description: Creates empty totals over the given store.
+    public LedgerRollup(TransactionStore store) {
+        this(store, new VersionedIntMap<>(), new VersionedIntMap<>(), new VersionedIntMap<>(),
+                new VersionedIntMap<>());
+    }
+
+
+    // Constructor: LedgerRollup
+    // Description: Creates totals over the given maps, which snapshots pass in as read-only versions.
+    private LedgerRollup(TransactionStore store, VersionedIntMap<Totals> byDay, VersionedIntMap<Totals> byMonth,
+                         VersionedIntMap<Totals> byYear, VersionedIntMap<Totals> byVendor) {
+        this.store = store;
+        this.byDay = byDay;
+        this.byMonth = byMonth;
+        this.byYear = byYear;
+        this.byVendor = byVendor;
+    }
+
+
+    // Method: add
+    // Description: Adds one row of the store to every total it belongs to.
+    public void add(int row) {
+        int day = store.getEpochDay(row);
+        if (day != lastDay) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            lastDay = day;
+            lastDayTotals = writable(byDay, day);
+            lastMonthTotals = writable(byMonth, monthKey(date));
+            lastYearTotals = writable(byYear, date.getYear());
+        }
+        long cents = store.getAmountCents(row);
+
+        lastDayTotals.add(cents);
+        lastMonthTotals.add(cents);
+        lastYearTotals.add(cents);
+        writable(byVendor, store.getVendorId(row)).add(cents);
+    }
+
+
+    // Method: snapshot
+    // Description: Returns the totals as they are now, over a snapshot of the store, in O(1).
+    // The snapshot is never updated, so readers on other threads can use it while rows keep being added.
+    public LedgerRollup snapshot(TransactionStore storeSnapshot) {
+        version++;
+        // The cached totals now belong to the snapshot, so the next row looks them up again
+        lastDay = Integer.MIN_VALUE;
+        return new LedgerRollup(storeSnapshot, byDay.snapshot(), byMonth.snapshot(), byYear.snapshot(),
+                byVendor.snapshot());
+    }
+
+
+    // Method: between
+    // Description: Returns the totals of every transaction from startDate to endDate, inclusive.
+    // Whole years and whole months inside the range are read from their own totals,
+    // so only the partial months at the edges are added up day by day.
+    public Totals between(LocalDate startDate, LocalDate endDate) {
+        Totals result = new Totals();
+        LocalDate date = startDate;
+        while (!date.isAfter(endDate)) {
+            LocalDate yearEnd = date.withDayOfYear(date.lengthOfYear());
+            LocalDate monthEnd = date.withDayOfMonth(date.lengthOfMonth());
+            if (date.getDayOfYear() == 1 && !yearEnd.isAfter(endDate)) {
+                result.add(byYear.get(date.getYear()));
+                date = yearEnd.plusDays(1);
+            } else if (date.getDayOfMonth() == 1 && !monthEnd.isAfter(endDate)) {
+                result.add(byMonth.get(monthKey(date)));
+                date = monthEnd.plusDays(1);
+            } else {
+                result.add(byDay.get((int) date.toEpochDay()));
+                date = date.plusDays(1);
+            }
+        }
+        return result;
+    }
+
+
+    // Method: forVendors
+    // Description: Returns the combined totals of the given vendor dictionary ids.
+    public Totals forVendors(IntList vendorIds) {
+        Totals result = new Totals();
+        for (int i = 0; i < vendorIds.size(); i++) {
+            result.add(byVendor.get(vendorIds.get(i)));
+        }
+        return result;
+    }
+
+
+    // Method: monthKey
+    // Description: Turns a date into a single int for its year and month.
+    private static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+
+    // Method: writable
+    // Description: Returns the totals stored under key that this version may change: new totals,
+    // or a copy of totals that a snapshot shares.
+    private Totals writable(VersionedIntMap<Totals> map, int key) {
+        Totals totals = map.get(key);
+        if (totals == null || totals.version != version) {
+            Totals copy = new Totals(version);
+            copy.add(totals);
+            map.put(key, copy);
+            totals = copy;
+        }
+        return totals;
+    }
+
+
+    // Class: Totals
+    // Description: Deposit total, payment total and count for one group of transactions, in cents.
+    public static class Totals {
+        // The rollup version that may still change these totals
+        private final int version;
+        private long depositCents;
+        private long paymentCents;
+        private long count;
+
+        // Constructor: Totals
+        // Description: Creates empty totals.
+        public Totals() {
+            this(-1);
+        }
+
+        private Totals(int version) {
+            this.version = version;
+        }
+
+        // Method: add
+        // Description: Adds one transaction amount; payments are negative.
+        void add(long cents) {
+            if (cents > 0) {
+                depositCents += cents;
+            } else {
+                paymentCents += cents;
+            }
+            count++;
+        }
+
+        // Method: add
+        // Description: Adds another group's totals; null is treated as empty.
+        void add(Totals other) {
+            if (other != null) {
+                depositCents += other.depositCents;
+                paymentCents += other.paymentCents;
+                count += other.count;
+            }
+        }
+
+        // Getter Methods
+        // Description: Return the deposit total, payment total (negative), net total and count.
+        public long getDepositCents() {
+            return depositCents;
+        }
+
+        public long getPaymentCents() {
+            return paymentCents;
+        }
+
+        public long getNetCents() {
+            return depositCents + paymentCents;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.pluralsight;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+// Class: LedgerServer
+// Description: Serves the ledger over HTTP as JSON, for dashboards and other programs.
+// Every request runs on its own virtual thread when the JVM has them (Java 21 and later),
+// otherwise on a cached pool of platform threads. Requests read the latest published LedgerView,
+// so any number of them can run at once next to writers. Responses are streamed as they are built.
+//
+//   GET  /ledger                          every transaction, newest first
+//   GET  /deposits, /payments             deposits or payments only
+//   GET  /reports/month-to-date           the four date reports of the Reports menu
+//   GET  /reports/previous-month
+//   GET  /reports/year-to-date
+//   GET  /reports/previous-year
+//   GET  /reports/vendor?name=            transactions of one vendor, ignoring case
+//   GET  /reports/search?start=&end=&description=&vendor=&amount=&min=&max=&largest=&explain   the custom search
+//   POST /transactions                    rows in the transactions.csv format, imported like --import
+//   GET  /metrics                         every metric in the Prometheus text format
+//
+// Every GET takes optional offset and limit parameters to page through the transactions.
+public class LedgerServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+
+    // Constructor: LedgerServer
+    // Description: Binds the server to the given port; start() starts answering requests.
+    public LedgerServer(int port) throws IOException {
+        ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+        virtualThreads = virtualThreadExecutor != null;
+        executor = virtualThreads ? virtualThreadExecutor : Executors.newCachedThreadPool();
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/ledger", exchange -> handle(exchange, "GET", params -> ledger(exchange, params)));
+        server.createContext("/deposits", exchange -> handle(exchange, "GET", params -> amountSign(exchange, params, 1)));
+        server.createContext("/payments", exchange -> handle(exchange, "GET", params -> amountSign(exchange, params, -1)));
+        server.createContext("/reports/", exchange -> handle(exchange, "GET", params -> report(exchange, params)));
+        server.createContext("/transactions", exchange -> handle(exchange, "POST", params -> post(exchange)));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET", params -> metrics(exchange)));
+    }
+
+
+    // Method: start
+    // Description: Starts answering requests in the background.
+    public void start() {
+        server.start();
+    }
+
+
+    // Method: stop
+    // Description: Stops accepting requests, gives running ones a second to finish, and stops the threads.
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+
+    // Method: getPort
+    // Description: Returns the port the server is bound to.
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+
+    // Method: usesVirtualThreads
+    // Description: Returns whether requests run on virtual threads.
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+
+    // Method: ledger
+    // Description: GET /ledger: every transaction, newest first.
+    private void ledger(HttpExchange exchange, Map<String, String> params) throws IOException {
+        FinancialTracker.ensureLoaded(null, null);
+        LedgerView view = FinancialTracker.view();
+        DateIndex dateIndex = view.getDateIndex();
+        LedgerJsonWriter json = startJson(exchange, view, params);
+        for (int i = dateIndex.size() - 1; i >= 0; i--) {
+            if (!json.row(dateIndex.rowAt(i))) {
+                break;
+            }
+        }
+        json.end(null);
+    }
+
+
+    // Method: amountSign
+    // Description: GET /deposits and /payments: transactions whose amount has the given sign.
+    private void amountSign(HttpExchange exchange, Map<String, String> params, int sign) throws IOException {
+        FinancialTracker.ensureLoaded(null, null);
+        LedgerView view = FinancialTracker.view();
+        TransactionStore store = view.getStore();
+        LedgerJsonWriter json = startJson(exchange, view, params);
+        for (int row = 0; row < store.size(); row++) {
+            if (Long.signum(store.getAmountCents(row)) == sign && !json.row(row)) {
+                break;
+            }
+        }
+        json.end(null);
+    }
+
+
+    // Method: report
+    // Description: GET /reports/...: the six options of the Reports menu.
+    private void report(HttpExchange exchange, Map<String, String> params) throws IOException {
+        LocalDate today = LocalDate.now();
+        String name = exchange.getRequestURI().getPath().substring("/reports/".length());
+        switch (name) {
+            case "month-to-date":
+                dateRange(exchange, params, today.withDayOfMonth(1), today);
+                break;
+            case "previous-month":
+                LocalDate prevMonthStart = today.minusMonths(1).withDayOfMonth(1);
+                dateRange(exchange, params, prevMonthStart, prevMonthStart.withDayOfMonth(prevMonthStart.lengthOfMonth()));
+                break;
+            case "year-to-date":
+                dateRange(exchange, params, today.withDayOfYear(1), today);
+                break;
+            case "previous-year":
+                LocalDate prevYearStart = today.minusYears(1).withDayOfYear(1);
+                dateRange(exchange, params, prevYearStart, prevYearStart.withDayOfYear(prevYearStart.lengthOfYear()));
+                break;
+            case "vendor":
+                vendor(exchange, params);
+                break;
+            case "search":
+                search(exchange, params);
+                break;
+            default:
+                sendError(exchange, 404, "Unknown report: " + name);
+                break;
+        }
+    }
+
+
+    // Method: dateRange
+    // Description: Transactions from startDate to endDate, in date order, with their totals.
+    private void dateRange(HttpExchange exchange, Map<String, String> params, LocalDate startDate, LocalDate endDate)
+            throws IOException {
+        FinancialTracker.ensureLoaded(startDate, endDate);
+        LedgerView view = FinancialTracker.view();
+        DateIndex dateIndex = view.getDateIndex();
+        int from = dateIndex.lowerBound((int) startDate.toEpochDay());
+        int to = dateIndex.upperBound((int) endDate.toEpochDay());
+        LedgerJsonWriter json = startJson(exchange, view, params);
+        for (int i = from; i < to; i++) {
+            if (!json.row(dateIndex.rowAt(i))) {
+                break;
+            }
+        }
+        json.end(view.getRollup().between(startDate, endDate));
+    }
+
+
+    // Method: vendor
+    // Description: GET /reports/vendor?name=: transactions of one vendor, with their totals.
+    private void vendor(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String name = params.get("name");
+        if (name == null) {
+            throw new IllegalArgumentException("Missing parameter: name");
+        }
+        FinancialTracker.ensureVendorLoaded(name);
+        LedgerView view = FinancialTracker.view();
+        IntList vendorIds = view.getVendorIndex().exactIds(name);
+        IntList rows = view.getVendorIndex().rows(vendorIds);
+        LedgerJsonWriter json = startJson(exchange, view, params);
+        for (int i = 0; i < rows.size(); i++) {
+            if (!json.row(rows.get(i))) {
+                break;
+            }
+        }
+        json.end(view.getRollup().forVendors(vendorIds));
+    }
+
+
+    // Method: search
+    // Description: GET /reports/search: the custom search; every parameter is optional.
+    // largest=K returns the K rows with the largest amounts, largest first; explain adds the query plan.
+    private void search(HttpExchange exchange, Map<String, String> params) throws IOException {
+        LocalDate startDate = params.containsKey("start") ? LocalDate.parse(params.get("start")) : null;
+        LocalDate endDate = params.containsKey("end") ? LocalDate.parse(params.get("end")) : null;
+        Long amountCents = params.containsKey("amount") ? Money.parseCents(params.get("amount")) : null;
+        Long minCents = params.containsKey("min") ? Long.valueOf(Money.parseCents(params.get("min"))) : amountCents;
+        Long maxCents = params.containsKey("max") ? Long.valueOf(Money.parseCents(params.get("max"))) : amountCents;
+        if (amountCents != null) {
+            minCents = Math.max(minCents, amountCents);
+            maxCents = Math.min(maxCents, amountCents);
+        }
+
+        TransactionQuery query = new TransactionQuery(startDate, endDate, params.get("description"),
+                params.get("vendor"), minCents, maxCents, intParam(params, "largest", 0));
+        FinancialTracker.ensureLoaded(query);
+        LedgerView view = FinancialTracker.view();
+        QueryPlan plan = query.plan(view);
+        IntList rows = plan.execute();
+        LedgerJsonWriter json = startJson(exchange, view, params);
+        for (int i = 0; i < rows.size(); i++) {
+            if (!json.row(rows.get(i))) {
+                break;
+            }
+        }
+        json.end(null, params.containsKey("explain") ? plan.explain() : null);
+    }
+
+
+    // Method: post
+    // Description: POST /transactions: imports the request body, one transaction per line in the
+    // transactions.csv format, and answers with the import statistics.
+    private void post(HttpExchange exchange) throws IOException {
+        ImportResult result;
+        try (InputStream in = exchange.getRequestBody()) {
+            result = FinancialTracker.importTransactions(in);
+        }
+        sendJson(exchange, 200, LedgerJsonWriter.toJson(result));
+    }
+
+
+    // Method: metrics
+    // Description: GET /metrics: every metric in the Prometheus text exposition format.
+    private void metrics(HttpExchange exchange) throws IOException {
+        byte[] body = Metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+
+    // Method: startJson
+    // Description: Sends the response headers for a streamed JSON document and returns its writer,
+    // paged by the offset and limit parameters.
+    private static LedgerJsonWriter startJson(HttpExchange exchange, LedgerView view, Map<String, String> params)
+            throws IOException {
+        int offset = intParam(params, "offset", 0);
+        int limit = intParam(params, "limit", Integer.MAX_VALUE);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        // A length of 0 sends the body in chunks, as it is written
+        exchange.sendResponseHeaders(200, 0);
+        LedgerJsonWriter json = new LedgerJsonWriter(view.getStore(), exchange.getResponseBody(), offset, limit);
+        json.begin();
+        return json;
+    }
+
+
+    // Method: handle
+    // Description: Runs an endpoint for requests with the expected method, turning bad parameters
+    // into 400 responses and any other failure into a 500 response while no headers have been sent,
+    // and always closes the exchange.
+    private static void handle(HttpExchange exchange, String method, Endpoint endpoint) {
+        String path = exchange.getHttpContext().getPath();
+        Metrics.Timer timer = Metrics.histogram("tracker_http_request_seconds",
+                "path=\"" + path + "\"", "Time to answer an HTTP request").start();
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendError(exchange, 405, "Use " + method);
+                return;
+            }
+            try {
+                endpoint.respond(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                // Parameters are checked before anything is sent, so the status can still be changed
+                sendError(exchange, 400, e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                // A save that failed reaches us wrapped in a CompletionException
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (exchange.getResponseCode() == -1) {
+                    System.out.println("Error answering " + path + ": " + cause);
+                    sendError(exchange, 500, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+                } else if (!(cause instanceof IOException || cause instanceof UncheckedIOException)) {
+                    // The status was already sent; the client sees the response cut short
+                    System.out.println("Error answering " + path + ": " + cause);
+                }
+                // Otherwise writing the response failed: the client went away, and there is nobody left to answer
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // Sending an error or closing the exchange failed, for the same reason
+        } finally {
+            timer.stop(0);
+        }
+    }
+
+
+    // Method: sendError
+    // Description: Answers with an HTTP error status and a JSON error message.
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, "{\"error\":" + LedgerJsonWriter.quote(String.valueOf(message)) + "}");
+    }
+
+
+    // Method: sendJson
+    // Description: Answers with a complete JSON document.
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+
+    // Method: parseQuery
+    // Description: Splits a raw query string into decoded name/value pairs.
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+
+    // Method: intParam
+    // Description: Returns a non-negative whole-number parameter, or the default if it is missing.
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+
+    // Method: newVirtualThreadExecutor
+    // Description: Returns an executor that starts a virtual thread per task, or null before Java 21.
+    // It is looked up by reflection so the program still builds and runs on Java 17.
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+
+    // Interface: Endpoint
+    // Description: Answers one request, given its query parameters.
+    private interface Endpoint {
+        void respond(Map<String, String> params) throws IOException;
+    }
+}
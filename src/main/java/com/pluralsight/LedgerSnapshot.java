@@ -0,0 +1,351 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+
+// Class: LedgerSnapshot
+// Description: Binary copy of the transaction store, so startup does not have to re-parse the CSV file.
+// Layout (little-endian):
+//   header (64 bytes): magic, version, row count, dictionary sizes, CSV offset, CSV fingerprint,
+//                      body length, body checksum, header checksum
+//   body: date, time, amount, description id and vendor id columns, the date index order,
+//         the amount index order, then the description and vendor dictionaries, each as a section length followed by
+//         (length, UTF-8 bytes) entries
+// The CSV offset records how much of transactions.csv the snapshot covers; rows appended after it
+// are replayed from the CSV on the next start. The fingerprint is a checksum of the first CSV bytes and
+// of the bytes just before the offset, so a CSV file that was rewritten or replaced is not matched
+// with an old snapshot.
+// Each section is mapped on its own, and a section of 2 GB or more cannot be mapped; such a snapshot
+// is treated like a damaged one and the CSV is loaded instead.
+public class LedgerSnapshot {
+    private static final long MAGIC = 0x313050414e535446L; // "FTSNAP01" read little-endian
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_CHECKSUM_OFFSET = 56;
+    private static final int FINGERPRINT_BYTES = 4096;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final TransactionStore store;
+    private final DateIndex dateIndex;
+    private final AmountIndex amountIndex;
+
+    // Set by read: how many CSV bytes the snapshot covers
+    private long csvOffset;
+
+
+    // Constructor: LedgerSnapshot
+    // Description: Creates a snapshot reader/writer for the given store and its date and amount indexes.
+    public LedgerSnapshot(TransactionStore store, DateIndex dateIndex, AmountIndex amountIndex) {
+        this.store = store;
+        this.dateIndex = dateIndex;
+        this.amountIndex = amountIndex;
+    }
+
+
+    // Method: write
+    // Description: Writes the store to the snapshot file, recording that it covers the first csvOffset
+    // bytes of the CSV file. The file is written under a temporary name and then moved into place,
+    // so a crash never leaves a half-written snapshot behind.
+    public void write(Path snapshotPath, Path csvPath, long csvOffset) throws IOException {
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        int rows = store.size();
+        CRC32C bodyChecksum = new CRC32C();
+        long bodyLength;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            BodyWriter body = new BodyWriter(channel, bodyChecksum);
+            body.putInts(store.dateColumn(), rows);
+            body.putInts(store.timeColumn(), rows);
+            body.putLongs(store.amountColumn(), rows);
+            body.putInts(store.descriptionIdColumn(), rows);
+            body.putInts(store.vendorIdColumn(), rows);
+            body.putInts(dateIndex.order(), dateIndex.size());
+            body.putInts(amountIndex.order(), amountIndex.size());
+            body.putDictionary(store.getDescriptions());
+            body.putDictionary(store.getVendors());
+            bodyLength = body.finish();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(rows);
+            header.putInt(store.getDescriptions().size());
+            header.putInt(store.getVendors().size());
+            header.putLong(csvOffset);
+            header.putLong(fingerprint(csvPath, csvOffset));
+            header.putLong(bodyLength);
+            header.putInt((int) bodyChecksum.getValue());
+            header.putInt(0);
+            CRC32C headerChecksum = new CRC32C();
+            headerChecksum.update(header.array(), 0, HEADER_CHECKSUM_OFFSET);
+            header.putInt((int) headerChecksum.getValue());
+            header.clear();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    // Method: read
+    // Description: Memory-maps the snapshot and fills the (empty) store and indexes from it.
+    // Throws IOException if the snapshot is damaged or does not match the current CSV file,
+    // in which case the caller should fall back to loading the CSV.
+    public void read(Path snapshotPath, Path csvPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("snapshot is truncated");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32C headerChecksum = new CRC32C();
+            headerChecksum.update(header.duplicate().limit(HEADER_CHECKSUM_OFFSET));
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION
+                    || header.getInt(HEADER_CHECKSUM_OFFSET) != (int) headerChecksum.getValue()) {
+                throw new IOException("snapshot header is not valid");
+            }
+
+            int rows = header.getInt(12);
+            int descriptionCount = header.getInt(16);
+            int vendorCount = header.getInt(20);
+            long offset = header.getLong(24);
+            long bodyLength = header.getLong(40);
+            int expectedChecksum = header.getInt(48);
+
+            if (channel.size() != HEADER_SIZE + bodyLength) {
+                throw new IOException("snapshot is truncated");
+            }
+            if (Files.size(csvPath) < offset || fingerprint(csvPath, offset) != header.getLong(32)) {
+                throw new IOException("transactions file no longer matches the snapshot");
+            }
+
+            BodyReader body = new BodyReader(channel, HEADER_SIZE);
+            int[] dates = body.getInts(rows);
+            int[] times = body.getInts(rows);
+            long[] amounts = body.getLongs(rows);
+            int[] descriptionIds = body.getInts(rows);
+            int[] vendorIds = body.getInts(rows);
+            int[] order = body.getInts(rows);
+            int[] amountOrder = body.getInts(rows);
+            ByteBuffer descriptionSection = body.getSection();
+            ByteBuffer vendorSection = body.getSection();
+            // Check everything before touching the store, so a bad snapshot leaves it empty
+            if (body.checksum() != expectedChecksum) {
+                throw new IOException("snapshot checksum does not match");
+            }
+            readDictionary(descriptionSection, store.getDescriptions(), descriptionCount);
+            readDictionary(vendorSection, store.getVendors(), vendorCount);
+
+            store.loadColumns(dates, times, amounts, descriptionIds, vendorIds, rows);
+            dateIndex.restore(order, rows);
+            amountIndex.restore(amountOrder, rows);
+            csvOffset = offset;
+        }
+    }
+
+
+    // Method: getCsvOffset
+    // Description: Returns how many bytes of the CSV file the snapshot read last covers.
+    public long getCsvOffset() {
+        return csvOffset;
+    }
+
+
+    // Method: readDictionary
+    // Description: Interns the (length, UTF-8 bytes) entries of a dictionary section.
+    // Values were written in id order, so interning them again gives the same ids.
+    private static void readDictionary(ByteBuffer section, StringDictionary dictionary, int count) throws IOException {
+        int position = 0;
+        for (int id = 0; id < count; id++) {
+            if (position + Integer.BYTES > section.limit()) {
+                throw new IOException("snapshot dictionary is not valid");
+            }
+            int length = section.getInt(position);
+            position += Integer.BYTES;
+            if (length < 0 || position + length > section.limit()
+                    || dictionary.intern(section, position, position + length) != id) {
+                throw new IOException("snapshot dictionary is not valid");
+            }
+            position += length;
+        }
+    }
+
+
+    // Method: fingerprint
+    // Description: Checksums up to 4 KB at the start of the CSV file and up to 4 KB just before the offset.
+    // CsvFollower uses it too, to notice that the file it follows was replaced.
+    static long fingerprint(Path csvPath, long offset) throws IOException {
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            checksum.update(readRange(channel, 0, Math.min(offset, FINGERPRINT_BYTES)));
+            checksum.update(readRange(channel, Math.max(0, offset - FINGERPRINT_BYTES), offset));
+        }
+        return checksum.getValue();
+    }
+
+
+    // Method: readRange
+    // Description: Reads the bytes between start and end of a file into a buffer ready to be read.
+    private static ByteBuffer readRange(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+
+    // Class: BodyWriter
+    // Description: Writes primitive arrays and dictionaries through one reusable buffer, checksumming as it goes.
+    private static class BodyWriter {
+        private final FileChannel channel;
+        private final CRC32C checksum;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long length;
+
+        BodyWriter(FileChannel channel, CRC32C checksum) {
+            this.channel = channel;
+            this.checksum = checksum;
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            for (int i = 0; i < count; ) {
+                int n = Math.min(count - i, buffer.remaining() / Integer.BYTES);
+                if (n == 0) {
+                    flush();
+                    continue;
+                }
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                i += n;
+            }
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            for (int i = 0; i < count; ) {
+                int n = Math.min(count - i, buffer.remaining() / Long.BYTES);
+                if (n == 0) {
+                    flush();
+                    continue;
+                }
+                buffer.asLongBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                i += n;
+            }
+        }
+
+        void putDictionary(StringDictionary dictionary) throws IOException {
+            byte[][] values = new byte[dictionary.size()][];
+            long sectionLength = 0;
+            for (int id = 0; id < values.length; id++) {
+                values[id] = dictionary.get(id).getBytes(StandardCharsets.UTF_8);
+                sectionLength += Integer.BYTES + values[id].length;
+            }
+            if (buffer.remaining() < Long.BYTES) {
+                flush();
+            }
+            buffer.putLong(sectionLength);
+
+            for (byte[] bytes : values) {
+                if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                    flush();
+                }
+                if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                    // A single value larger than the buffer is written on its own
+                    ByteBuffer large = ByteBuffer.allocate(Integer.BYTES + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+                    large.putInt(bytes.length).put(bytes).flip();
+                    write(large);
+                    continue;
+                }
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+
+        long finish() throws IOException {
+            flush();
+            return length;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer source) throws IOException {
+            checksum.update(source.duplicate());
+            while (source.hasRemaining()) {
+                length += channel.write(source);
+            }
+        }
+    }
+
+
+    // Class: BodyReader
+    // Description: Maps one section of the body at a time and bulk-copies it into arrays,
+    // checksumming every section.
+    private static class BodyReader {
+        private final FileChannel channel;
+        private final CRC32C checksum = new CRC32C();
+        private long position;
+
+        BodyReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        int[] getInts(int count) throws IOException {
+            ByteBuffer section = map((long) count * Integer.BYTES);
+            int[] values = new int[count];
+            section.asIntBuffer().get(values);
+            return values;
+        }
+
+        long[] getLongs(int count) throws IOException {
+            ByteBuffer section = map((long) count * Long.BYTES);
+            long[] values = new long[count];
+            section.asLongBuffer().get(values);
+            return values;
+        }
+
+        ByteBuffer getSection() throws IOException {
+            long sectionLength = map(Long.BYTES).getLong(0);
+            return map(sectionLength);
+        }
+
+        int checksum() {
+            return (int) checksum.getValue();
+        }
+
+        private ByteBuffer map(long length) throws IOException {
+            if (position + length > channel.size()) {
+                throw new IOException("snapshot is truncated");
+            }
+            MappedByteBuffer section;
+            try {
+                section = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            } catch (IllegalArgumentException e) {
+                // A single mapping is limited to 2 GB
+                throw new IOException("snapshot section of " + length + " bytes is too large to map");
+            }
+            section.order(ByteOrder.LITTLE_ENDIAN);
+            checksum.update(section.duplicate());
+            position += length;
+            return section;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pluralsight;
+
+
+// Class: LedgerView
+// Description: One published, immutable state of the Ledger: its rows, date and amount indexes, text indexes
+// and totals as of one publish. Any number of threads can read a view at once without locks,
+// and nothing in it changes while they do. Nothing in a view may be added to.
+public class LedgerView {
+    private final TransactionStore store;
+    private final DateIndex dateIndex;
+    private final AmountIndex amountIndex;
+    private final TextIndex vendorIndex;
+    private final TextIndex descriptionIndex;
+    private final LedgerRollup rollup;
+
+
+    // Constructor: LedgerView
+    // Description: Creates a view from snapshots that all describe the same rows.
+    LedgerView(TransactionStore store, DateIndex dateIndex, AmountIndex amountIndex, TextIndex vendorIndex,
+               TextIndex descriptionIndex, LedgerRollup rollup) {
+        this.store = store;
+        this.dateIndex = dateIndex;
+        this.amountIndex = amountIndex;
+        this.vendorIndex = vendorIndex;
+        this.descriptionIndex = descriptionIndex;
+        this.rollup = rollup;
+    }
+
+
+    // Getter Methods
+    // Description: Return the parts of the view.
+    public TransactionStore getStore() {
+        return store;
+    }
+
+    public DateIndex getDateIndex() {
+        return dateIndex;
+    }
+
+    public AmountIndex getAmountIndex() {
+        return amountIndex;
+    }
+
+    public TextIndex getVendorIndex() {
+        return vendorIndex;
+    }
+
+    public TextIndex getDescriptionIndex() {
+        return descriptionIndex;
+    }
+
+    public LedgerRollup getRollup() {
+        return rollup;
+    }
+
+    // Method: size
+    // Description: Returns the number of transactions in the view.
+    public int size() {
+        return store.size();
+    }
+}
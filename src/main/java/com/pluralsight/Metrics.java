@@ -0,0 +1,314 @@
+package com.pluralsight;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+
+// Class: Metrics
+// Description: The program's metrics registry: counters, gauges and latency histograms, each
+// identified by a name and optional Prometheus labels (such as source="csv"). Recording never takes
+// a lock: counters are LongAdders, and histograms count into a fixed array of atomic buckets.
+// toPrometheus() writes every metric in the Prometheus text format; every timed operation is also
+// committed as a LedgerEvent, so a Java Flight Recorder recording shows it next to GC and I/O.
+// Asking for a metric that is already registered returns the existing one, so classes can keep
+// their metrics in static fields.
+public final class Metrics {
+    // Every metric family by name, each with its metrics by labels
+    private static final Map<String, Family> FAMILIES = new ConcurrentSkipListMap<>();
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+
+    // Constructor: Metrics
+    // Description: Not used; the registry is only static methods.
+    private Metrics() {
+    }
+
+
+    // Method: counter
+    // Description: Returns the counter of a name and labels (empty for none), registering it the first time.
+    public static Counter counter(String name, String labels, String help) {
+        return (Counter) family(name, "counter", help).metrics.computeIfAbsent(labels, key -> new Counter());
+    }
+
+
+    // Method: histogram
+    // Description: Returns the latency histogram of a name and labels (empty for none), registering it
+    // the first time. It is exported as a Prometheus summary in seconds.
+    public static Histogram histogram(String name, String labels, String help) {
+        String operation = labels.isEmpty() ? name : name + "{" + labels + "}";
+        return (Histogram) family(name, "summary", help).metrics.computeIfAbsent(labels, key -> new Histogram(operation));
+    }
+
+
+    // Method: gauge
+    // Description: Registers a gauge that reads its value when the metrics are exported.
+    // A gauge registered again under the same name and labels replaces the earlier one.
+    public static void gauge(String name, String labels, String help, LongSupplier value) {
+        family(name, "gauge", help).metrics.put(labels, value);
+    }
+
+
+    // Method: toPrometheus
+    // Description: Returns every metric in the Prometheus text exposition format, sorted by name.
+    public static String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Family> entry : FAMILIES.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            text.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+                String labels = metric.getKey();
+                Object value = metric.getValue();
+                if (value instanceof Counter) {
+                    appendSample(text, name, labels, null, ((Counter) value).get());
+                } else if (value instanceof LongSupplier) {
+                    appendSample(text, name, labels, null, ((LongSupplier) value).getAsLong());
+                } else {
+                    ((Histogram) value).appendTo(text, name, labels);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+
+    // Method: family
+    // Description: Returns the family of a name, registering it the first time.
+    // A name keeps the type it was first registered with.
+    private static Family family(String name, String type, String help) {
+        Family family = FAMILIES.computeIfAbsent(name, key -> new Family(type, help));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already a " + family.type);
+        }
+        return family;
+    }
+
+
+    // Method: appendSample
+    // Description: Appends one sample line, merging an extra label (such as a quantile) into the labels.
+    private static void appendSample(StringBuilder text, String name, String labels, String extraLabel, Object value) {
+        text.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            text.append('{').append(labels);
+            if (extraLabel != null) {
+                text.append(labels.isEmpty() ? "" : ",").append(extraLabel);
+            }
+            text.append('}');
+        }
+        text.append(' ').append(value).append('\n');
+    }
+
+
+    // Class: Family
+    // Description: The metrics sharing one name, with their type and help text.
+    private static class Family {
+        private final String type;
+        private final String help;
+        // Counter, Histogram or LongSupplier (for a gauge) by labels
+        private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+        private Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+
+    // Class: Counter
+    // Description: A count that only goes up, added to from any thread without contention.
+    public static final class Counter {
+        private final LongAdder count = new LongAdder();
+
+        private Counter() {
+        }
+
+
+        // Method: increment
+        // Description: Adds one.
+        public void increment() {
+            count.increment();
+        }
+
+
+        // Method: add
+        // Description: Adds a non-negative amount.
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+
+        // Method: get
+        // Description: Returns the count.
+        public long get() {
+            return count.sum();
+        }
+    }
+
+
+    // Class: Histogram
+    // Description: Latencies in nanoseconds, counted into log-linear buckets in the style of an HDR histogram:
+    // every power of two is split into 2^SUB_BUCKET_BITS equal buckets, so any value is known to within
+    // 12.5% using 488 buckets from one nanosecond to centuries. Recording is one atomic increment plus
+    // the count, sum and maximum.
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final String operation;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String operation) {
+            this.operation = operation;
+        }
+
+
+        // Method: start
+        // Description: Starts timing one operation; stop the returned timer when it is done.
+        public Timer start() {
+            return new Timer(this);
+        }
+
+
+        // Method: record
+        // Description: Records one latency in nanoseconds.
+        public void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            buckets.incrementAndGet(bucket(value));
+            count.increment();
+            sum.add(value);
+            long previous = max.get();
+            while (value > previous && !max.compareAndSet(previous, value)) {
+                previous = max.get();
+            }
+        }
+
+
+        // Method: getCount
+        // Description: Returns the number of latencies recorded.
+        public long getCount() {
+            return count.sum();
+        }
+
+
+        // Method: quantile
+        // Description: Returns the latency in nanoseconds that the given fraction of recordings do not exceed,
+        // as the upper end of its bucket (never above the largest recording), or 0 with no recordings.
+        public long quantile(double fraction) {
+            long[] counts = counts();
+            return quantile(counts, counts[BUCKET_COUNT], fraction);
+        }
+
+
+        // Method: appendTo
+        // Description: Appends the histogram as the quantile, sum and count lines of a Prometheus summary.
+        private void appendTo(StringBuilder text, String name, String labels) {
+            long[] counts = counts();
+            long total = counts[BUCKET_COUNT];
+            for (double fraction : QUANTILES) {
+                appendSample(text, name, labels, "quantile=\"" + fraction + "\"",
+                        quantile(counts, total, fraction) / NANOS_PER_SECOND);
+            }
+            appendSample(text, name + "_sum", labels, null, sum.sum() / NANOS_PER_SECOND);
+            appendSample(text, name + "_count", labels, null, total);
+        }
+
+
+        // Method: counts
+        // Description: Copies the bucket counts, followed by their total.
+        private long[] counts() {
+            long[] counts = new long[BUCKET_COUNT + 1];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = buckets.get(i);
+                counts[BUCKET_COUNT] += counts[i];
+            }
+            return counts;
+        }
+
+
+        // Method: quantile
+        // Description: Finds a quantile in a copy of the bucket counts.
+        private long quantile(long[] counts, long total, double fraction) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long upper = i + 1 < BUCKET_COUNT ? lowestValue(i + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(upper, max.get());
+                }
+            }
+            return max.get();
+        }
+
+
+        // Method: bucket
+        // Description: Returns the bucket of a value: values below SUB_BUCKETS have one bucket each,
+        // larger ones share a bucket with the values that agree in their top bits. A negative value
+        // counts as zero and the index never passes the last bucket, so a bad timing cannot throw.
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(value, 0);
+            }
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return Math.min(((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket, BUCKET_COUNT - 1);
+        }
+
+
+        // Method: lowestValue
+        // Description: Returns the smallest value that falls into a bucket.
+        private static long lowestValue(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+            long subBucket = bucket & (SUB_BUCKETS - 1);
+            return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+    }
+
+
+    // Class: Timer
+    // Description: One timed operation. stop() records its latency in the histogram and, when Flight
+    // Recorder is recording, commits it as a LedgerEvent with the number of rows it handled.
+    public static final class Timer {
+        private final Histogram histogram;
+        private final LedgerEvent event = new LedgerEvent();
+        private final long startNanos;
+
+        private Timer(Histogram histogram) {
+            this.histogram = histogram;
+            event.begin();
+            startNanos = System.nanoTime();
+        }
+
+
+        // Method: stop
+        // Description: Ends the operation, recording rows as the number of rows it handled.
+        // Returns the elapsed nanoseconds.
+        public long stop(long rows) {
+            long elapsed = System.nanoTime() - startNanos;
+            histogram.record(elapsed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = histogram.operation;
+                event.rows = rows;
+                event.commit();
+            }
+            return elapsed;
+        }
+    }
+}
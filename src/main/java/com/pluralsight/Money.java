@@ -0,0 +1,146 @@
+package com.pluralsight;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+
+// Class: Money
+// Description: Amounts of money as a whole number of cents in a long.
+// A long holds every amount exactly, so an amount typed by the user compares equal to the same
+// amount read from the file, and totals of millions of rows never drift the way doubles do.
+// Everything here works on primitives and caller-supplied buffers, so nothing is allocated per row.
+public final class Money {
+    // Returned by parseCents(ByteBuffer, int, int) when the text is not an amount
+    static final long INVALID = Long.MIN_VALUE;
+    // Most digits parseCents accepts before the point: 16 digits and two decimals stay below 10^18 cents,
+    // while 17 digits scaled to cents can pass Long.MAX_VALUE (about 9.2 * 10^18)
+    static final int MAX_WHOLE_DIGITS = 16;
+    // Largest amount parseCents accepts, 9999999999999999.99; rounding past it would give text it rejects
+    static final long MAX_CENTS = 999_999_999_999_999_999L;
+    // Longest text toString returns for any long, such as a large total: sign, 17 digits, point and two decimals
+    static final int MAX_LENGTH = 21;
+
+    private Money() {
+    }
+
+
+    // Method: parseCents
+    // Description: Parses an amount such as -89.50 into cents, like Double.parseDouble but exact.
+    // Throws NumberFormatException if the text is not a plain decimal number.
+    public static long parseCents(String text) {
+        // Any character that is not ASCII becomes '?', which is not part of an amount either
+        byte[] ascii = text.getBytes(StandardCharsets.US_ASCII);
+        long cents = parseCents(ByteBuffer.wrap(ascii), 0, ascii.length);
+        if (cents == INVALID) {
+            throw new NumberFormatException("Not an amount: " + text);
+        }
+        return cents;
+    }
+
+
+    // Method: parseCents
+    // Description: Parses the ASCII bytes from start to end into cents without creating a String.
+    // Spaces around the number are ignored, at most 16 digits are accepted before the point and digits
+    // past the cents are rounded half up, so the result always fits in a long. Returns INVALID if it is not a plain decimal. This is the one parser of amounts:
+    // the CSV loader calls it on the file's bytes, and parseCents(String) on the bytes of typed text.
+    static long parseCents(ByteBuffer buf, int start, int end) {
+        // Allow stray spaces around the number
+        while (start < end && buf.get(start) == ' ') start++;
+        while (end > start && buf.get(end - 1) == ' ') end--;
+
+        boolean negative = false;
+        if (start < end && (buf.get(start) == '-' || buf.get(start) == '+')) {
+            negative = buf.get(start) == '-';
+            start++;
+        }
+
+        long cents = 0;
+        int digitCount = 0;
+        int wholeDigits = 0;
+        int scale = -1;
+        boolean roundUp = false;
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (scale >= 2) {
+                    // Only the first digit past the cents decides the rounding
+                    if (scale == 2) roundUp = b >= '5';
+                    scale++;
+                    continue;
+                }
+                if (scale < 0) {
+                    if (wholeDigits == MAX_WHOLE_DIGITS) {
+                        return INVALID;
+                    }
+                    wholeDigits++;
+                }
+                cents = cents * 10 + (b - '0');
+                digitCount++;
+                if (scale >= 0) scale++;
+            } else {
+                return INVALID;
+            }
+        }
+        if (digitCount == 0) {
+            return INVALID;
+        }
+
+        // Scale whole numbers and single decimals up to cents
+        for (int s = Math.max(scale, 0); s < 2; s++) {
+            cents *= 10;
+        }
+        if (roundUp) {
+            cents++;
+        }
+        if (cents > MAX_CENTS) {
+            return INVALID;
+        }
+        return negative ? -cents : cents;
+    }
+
+
+    // Method: toString
+    // Description: Formats cents with two decimals, like String.format("%.2f", cents / 100.0).
+    public static String toString(long cents) {
+        char[] chars = new char[MAX_LENGTH];
+        return new String(chars, 0, append(chars, 0, cents, 0));
+    }
+
+
+    // Method: append
+    // Description: Appends an amount in cents with two decimals, right-aligned in width like %10.2f.
+    // A width of zero appends just the number. Returns the position after the amount.
+    static int append(char[] chars, int position, long cents, int width) {
+        // Digits are taken from the signed value, so Long.MIN_VALUE needs no special case
+        long value = cents;
+        int count = 4;
+        for (long whole = cents / 100; whole <= -10 || whole >= 10; whole /= 10) {
+            count++;
+        }
+        if (cents < 0) {
+            count++;
+        }
+        for (int i = count; i < width; i++) {
+            chars[position++] = ' ';
+        }
+
+        // Fill the digits in from the right
+        int end = position + count;
+        int index = end;
+        for (int digit = 0; digit < 2; digit++) {
+            chars[--index] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        }
+        chars[--index] = '.';
+        do {
+            chars[--index] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (cents < 0) {
+            chars[--index] = '-';
+        }
+        return end;
+    }
+}
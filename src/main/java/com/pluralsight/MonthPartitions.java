@@ -0,0 +1,694 @@
+package com.pluralsight;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+
+
+// Class: MonthPartitions
+// Description: Keeps the transactions in one file per month under a data directory (2025-01.csv, ...),
+// in the same pipe-delimited format as transactions.csv, with a manifest (manifest.csv) listing each
+// partition's month, first and last date, row count and the size of its text file.
+// Only the manifest is read at start-up. A partition is loaded into the Ledger the first time a report
+// needs one of its dates, so a Previous Month report reads one file however many years are stored.
+// New rows are appended to their month's file; its partition is loaded first, so no row is ever loaded twice.
+// Old months can be compacted into a BlockFile (2025-01.blk) of compressed blocks. Its blocks are loaded
+// one by one, only when their dates, amounts and vendors may match what a report asks for; rows added to
+// a compacted month go to a new text file next to it, until the next compaction merges them in.
+public class MonthPartitions implements AutoCloseable {
+    static final String MANIFEST_FILE = "manifest.csv";
+    private static final String MANIFEST_HEADER = "month|first date|last date|rows|bytes";
+    private static final String SUFFIX = ".csv";
+    private static final Metrics.Histogram LOAD = Metrics.histogram("tracker_load_seconds", "source=\"partitions\"",
+            "Time to load transactions into the ledger");
+    private static final Metrics.Counter BLOCKS_READ = Metrics.counter("tracker_blocks_read_total", "",
+            "Compressed blocks of compacted months decompressed and loaded");
+    private static final Metrics.Counter BLOCKS_SKIPPED = Metrics.counter("tracker_blocks_skipped_total", "",
+            "Compressed blocks a load left on disk because their zone map ruled out a match");
+
+    private final Path directory;
+    private final Ledger ledger;
+    private final AppendLog.SyncPolicy policy;
+    private final long intervalMillis;
+    // Every partition by month, loaded or not; guarded by this
+    private final TreeMap<YearMonth, Partition> partitions = new TreeMap<>();
+    // The manifest as it is on disk, so it is only rewritten when a partition changed; guarded by this
+    private String savedManifest = "";
+
+
+    // Constructor: MonthPartitions
+    // Description: Creates the partitions of a directory; use open() to read them from disk.
+    private MonthPartitions(Path directory, Ledger ledger, AppendLog.SyncPolicy policy, long intervalMillis) {
+        this.directory = directory;
+        this.ledger = ledger;
+        this.policy = policy;
+        this.intervalMillis = intervalMillis;
+    }
+
+
+    // Method: open
+    // Description: Reads the manifest of a data directory, creating the directory if needed.
+    // Partition files missing from the manifest, or changed since it was written (after a crash),
+    // are re-counted and given the bounds of their whole month. No transactions are loaded yet.
+    public static MonthPartitions open(Path directory, Ledger ledger, AppendLog.SyncPolicy policy,
+                                       long intervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        MonthPartitions result = new MonthPartitions(directory, ledger, policy, intervalMillis);
+
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (Files.exists(manifest)) {
+            result.savedManifest = Files.readString(manifest, StandardCharsets.UTF_8);
+            for (String line : result.savedManifest.split("\\R")) {
+                String[] fields = line.split("\\|");
+                if (line.equals(MANIFEST_HEADER) || fields.length != 5) {
+                    continue;
+                }
+                try {
+                    Partition partition = new Partition(YearMonth.parse(fields[0]));
+                    partition.firstDay = (int) LocalDate.parse(fields[1]).toEpochDay();
+                    partition.lastDay = (int) LocalDate.parse(fields[2]).toEpochDay();
+                    partition.rowCount = Integer.parseInt(fields[3]);
+                    partition.byteCount = Long.parseLong(fields[4]);
+                    result.partitions.put(partition.month, partition);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    // A damaged entry is rebuilt from its file below
+                }
+            }
+        }
+
+        // Every month with a text file, a block file or both
+        TreeSet<YearMonth> months = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                "[0-9][0-9][0-9][0-9]-[0-9][0-9]{" + SUFFIX + "," + BlockFile.SUFFIX + "}")) {
+            for (Path file : files) {
+                try {
+                    months.add(YearMonth.parse(file.getFileName().toString().substring(0, 7)));
+                } catch (DateTimeParseException e) {
+                    // Not a partition file
+                }
+            }
+        }
+        for (YearMonth month : months) {
+            Path text = result.file(month);
+            BlockFile blocks = null;
+            if (Files.exists(result.blockFile(month)) && Files.exists(text)) {
+                blocks = BlockFile.open(result.blockFile(month));
+                // A crash during compaction left the text file behind, but its rows are in the block file
+                if (blocks.matchesSource(text)) {
+                    Files.delete(text);
+                }
+            }
+            Partition partition = result.partitions.get(month);
+            long size = Files.exists(text) ? Files.size(text) : 0;
+            if (partition == null || partition.byteCount != size) {
+                partition = new Partition(month);
+                partition.firstDay = (int) month.atDay(1).toEpochDay();
+                partition.lastDay = (int) month.atEndOfMonth().toEpochDay();
+                partition.rowCount = Files.exists(text) ? countLines(text) : 0;
+                partition.byteCount = size;
+                result.partitions.put(month, partition);
+                if (blocks == null && Files.exists(result.blockFile(month))) {
+                    blocks = BlockFile.open(result.blockFile(month));
+                }
+                partition.rowCount += blocks == null ? 0 : blocks.getRowCount();
+            }
+            partition.compacted = Files.exists(result.blockFile(month));
+            if (blocks != null) {
+                partition.setBlocks(blocks);
+            }
+        }
+        // Entries whose files are gone have nothing to load
+        result.partitions.keySet().retainAll(months);
+        return result;
+    }
+
+
+    // Method: exists
+    // Description: Returns whether a directory already holds partitions or a manifest.
+    public static boolean exists(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        if (Files.exists(directory.resolve(MANIFEST_FILE))) {
+            return true;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + SUFFIX + "," + BlockFile.SUFFIX + "}")) {
+            return files.iterator().hasNext();
+        }
+    }
+
+
+    // Method: split
+    // Description: Copies every line of a single transactions file into the monthly files of a
+    // directory and writes the manifest. Lines without a valid date are skipped and counted.
+    // Returns the number of lines skipped. The original file is left as it is.
+    public static int split(Path csvFile, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<YearMonth, Partition> partitions = new TreeMap<>();
+        Map<YearMonth, BufferedWriter> writers = new TreeMap<>();
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LocalDate date;
+                try {
+                    date = LocalDate.parse(line.substring(0, Math.max(line.indexOf('|'), 0)));
+                } catch (DateTimeParseException e) {
+                    if (!line.isBlank()) {
+                        skipped++;
+                    }
+                    continue;
+                }
+                YearMonth month = YearMonth.from(date);
+                BufferedWriter writer = writers.get(month);
+                if (writer == null) {
+                    writer = Files.newBufferedWriter(directory.resolve(month + SUFFIX), StandardCharsets.UTF_8);
+                    writers.put(month, writer);
+                    partitions.put(month, new Partition(month));
+                }
+                writer.write(line);
+                writer.write('\n');
+                partitions.get(month).record((int) date.toEpochDay(), 1);
+            }
+        } finally {
+            for (BufferedWriter writer : writers.values()) {
+                writer.close();
+            }
+        }
+        for (Partition partition : partitions.values()) {
+            partition.byteCount = Files.size(directory.resolve(partition.month + SUFFIX));
+        }
+        writeManifest(directory, manifestText(partitions));
+        return skipped;
+    }
+
+
+    // Method: ensureLoaded
+    // Description: Loads every partition that overlaps the range from startDate to endDate and is not
+    // loaded yet; a null date leaves that side of the range open. Partitions outside the range are
+    // pruned using their date bounds and never read. Prints a line if anything was loaded.
+    public void ensureLoaded(LocalDate startDate, LocalDate endDate) throws IOException {
+        ensureLoaded(startDate, endDate, Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+
+    // Method: ensureLoaded
+    // Description: Loads whatever is not loaded yet and may hold rows from startDate to endDate (null for
+    // an open side) with an amount from minCents to maxCents and, unless vendor is null, of that vendor.
+    // Text files are loaded whole when their dates overlap; the blocks of a compacted month are also
+    // skipped when their amount range or vendor bloom filter rules them out, and stay compressed on
+    // disk until a report needs them.
+    public synchronized void ensureLoaded(LocalDate startDate, LocalDate endDate, long minCents, long maxCents,
+                                          String vendor) throws IOException {
+        Metrics.Timer timer = LOAD.start();
+        int startDay = startDate == null ? Integer.MIN_VALUE : (int) startDate.toEpochDay();
+        int endDay = endDate == null ? Integer.MAX_VALUE : (int) endDate.toEpochDay();
+        List<Load> pending = new ArrayList<>();
+        int fileCount = 0;
+        int blockCount = 0;
+        int skippedBlocks = 0;
+        for (Partition partition : partitions.values()) {
+            if (partition.lastDay < startDay || partition.firstDay > endDay) {
+                continue;
+            }
+            if (!partition.loaded) {
+                if (Files.exists(file(partition.month))) {
+                    pending.add(new Load(partition, Load.TEXT_FILE));
+                    fileCount++;
+                } else {
+                    // A compacted month with no rows added since
+                    partition.loaded = true;
+                }
+            }
+            if (partition.compacted) {
+                BlockFile blocks = blocks(partition);
+                for (int block = 0; block < blocks.getBlockCount(); block++) {
+                    if (partition.blockLoaded[block]) {
+                        continue;
+                    }
+                    if (blocks.mayMatch(block, startDay, endDay, minCents, maxCents, vendor)) {
+                        pending.add(new Load(partition, block));
+                        blockCount++;
+                    } else {
+                        skippedBlocks++;
+                    }
+                }
+            }
+        }
+        BLOCKS_SKIPPED.add(skippedBlocks);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Parse the files and blocks on every core, then add them to the ledger in month order
+        List<CompletableFuture<TransactionStore>> parsing = new ArrayList<>();
+        for (Load load : pending) {
+            parsing.add(CompletableFuture.supplyAsync(() -> read(load), ForkJoinPool.commonPool()));
+        }
+        int rows = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            TransactionStore parsed;
+            try {
+                parsed = parsing.get(i).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof UncheckedIOException
+                        ? ((UncheckedIOException) e.getCause()).getCause() : new IOException(e.getCause());
+            }
+            rows += add(pending.get(i), parsed);
+        }
+        ledger.publish();
+        long elapsed = timer.stop(rows);
+        FinancialTracker.ROWS_LOADED.add(rows);
+        BLOCKS_READ.add(blockCount);
+        if (blockCount == 0 && skippedBlocks == 0) {
+            System.out.printf("Loaded %d of %d partitions (%d transactions) in %d ms%n",
+                    fileCount, partitions.size(), rows, elapsed / 1_000_000);
+        } else {
+            System.out.printf("Loaded %d partition files and %d compressed blocks, skipped %d blocks "
+                            + "(%d transactions) in %d ms%n",
+                    fileCount, blockCount, skippedBlocks, rows, elapsed / 1_000_000);
+        }
+    }
+
+
+    // Method: compact
+    // Description: Compacts the text file of every month before the given one into the month's block file,
+    // merging in rows compacted earlier, then deletes the text file. Months that are loaded or hold invalid
+    // lines are left as they are. Prints how much smaller the files became and returns the months compacted.
+    public synchronized int compact(YearMonth before) throws IOException {
+        int months = 0;
+        int rows = 0;
+        long textBytes = 0;
+        long blockBytes = 0;
+        for (Partition partition : partitions.headMap(before).values()) {
+            Path text = file(partition.month);
+            if (partition.loaded || partition.log != null || partition.isAnyBlockLoaded() || !Files.exists(text)) {
+                continue;
+            }
+            long sourceLength = Files.size(text);
+            int sourceChecksum = BlockFile.checksum(text);
+            TransactionStore store = new TransactionStore();
+            long previousBytes = 0;
+            if (partition.compacted) {
+                BlockFile previous = blocks(partition);
+                for (int block = 0; block < previous.getBlockCount(); block++) {
+                    previous.read(block, store);
+                }
+                previousBytes = previous.getByteCount();
+            }
+            TransactionParser parser = new TransactionParser();
+            try (InputStream in = Files.newInputStream(text)) {
+                parser.parse(in, store);
+            }
+            if (parser.getBadLineCount() > 0) {
+                System.out.printf("Not compacting %s: %d invalid line(s), first bad line: %d%n",
+                        text.getFileName(), parser.getBadLineCount(), parser.getFirstBadLine());
+                continue;
+            }
+
+            // Blocks in date order keep each block's date range narrow, so date ranges skip more of them
+            DateIndex dateIndex = new DateIndex(store);
+            dateIndex.rebuild();
+            IntList order = new IntList(Math.max(store.size(), 1));
+            for (int i = 0; i < dateIndex.size(); i++) {
+                order.add(dateIndex.rowAt(i));
+            }
+            BlockFile blocks = BlockFile.write(blockFile(partition.month), store, order, sourceLength, sourceChecksum);
+            Files.delete(text);
+
+            partition.compacted = true;
+            partition.setBlocks(blocks);
+            partition.rowCount = blocks.getRowCount();
+            partition.byteCount = 0;
+            if (blocks.getBlockCount() > 0) {
+                partition.firstDay = blocks.getFirstDay(0);
+                partition.lastDay = blocks.getLastDay(blocks.getBlockCount() - 1);
+            }
+            months++;
+            rows += store.size();
+            textBytes += sourceLength;
+            blockBytes += blocks.getByteCount() - previousBytes;
+        }
+        saveManifest();
+        System.out.printf("Compacted %d months (%d transactions): %d KB of text became %d KB of compressed blocks%n",
+                months, rows, textBytes / 1024, blockBytes / 1024);
+        return months;
+    }
+
+
+    // Method: append
+    // Description: Appends one line to the file of the month of the given date, which must be loaded.
+    public synchronized CompletableFuture<Void> append(LocalDate date, String line) throws IOException {
+        Partition partition = writable(YearMonth.from(date));
+        partition.record((int) date.toEpochDay(), 1);
+        return partition.log.append(line);
+    }
+
+
+    // Method: append
+    // Description: Appends rows of a store to the files of their months, which must be loaded,
+    // as one group commit per month. lineOf formats a row as a line of the file.
+    public synchronized CompletableFuture<Void> append(TransactionStore store, IntList rows,
+                                                      IntFunction<String> lineOf) throws IOException {
+        TreeMap<YearMonth, StringBuilder> linesByMonth = new TreeMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            int day = store.getEpochDay(row);
+            YearMonth month = YearMonth.from(LocalDate.ofEpochDay(day));
+            StringBuilder lines = linesByMonth.computeIfAbsent(month, key -> new StringBuilder());
+            if (lines.length() > 0) {
+                lines.append('\n');
+            }
+            lines.append(lineOf.apply(row));
+            writable(month).record(day, 1);
+        }
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (Map.Entry<YearMonth, StringBuilder> entry : linesByMonth.entrySet()) {
+            saves.add(partitions.get(entry.getKey()).log.append(entry.getValue().toString()));
+        }
+        return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0]));
+    }
+
+
+    // Method: saveManifest
+    // Description: Rewrites the manifest from the partitions as they are now, if any partition's
+    // dates, row count or file size differ from the manifest on disk. Returns whether it was written.
+    // Lines still queued in the partitions' logs are counted once the logs are closed.
+    public synchronized boolean saveManifest() throws IOException {
+        for (Partition partition : partitions.values()) {
+            Path file = file(partition.month);
+            if (Files.exists(file)) {
+                partition.byteCount = Files.size(file);
+            }
+        }
+        String text = manifestText(partitions);
+        if (text.equals(savedManifest)) {
+            return false;
+        }
+        writeManifest(directory, text);
+        savedManifest = text;
+        return true;
+    }
+
+
+    // Method: close
+    // Description: Writes and closes every open partition log, then saves the manifest if it changed.
+    @Override
+    public synchronized void close() throws IOException {
+        for (Partition partition : partitions.values()) {
+            if (partition.log != null) {
+                partition.log.close();
+                partition.log = null;
+            }
+        }
+        if (saveManifest()) {
+            System.out.println("Manifest saved (" + partitions.size() + " partitions)");
+        }
+    }
+
+
+    // Getter Methods
+    // Description: Return the number of partitions, how many are loaded, and the rows they hold.
+    public synchronized int getPartitionCount() {
+        return partitions.size();
+    }
+
+    public synchronized int getLoadedCount() {
+        int count = 0;
+        for (Partition partition : partitions.values()) {
+            if (partition.loaded && !partition.isAnyBlockUnloaded()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized long getRowCount() {
+        long count = 0;
+        for (Partition partition : partitions.values()) {
+            count += partition.rowCount;
+        }
+        return count;
+    }
+
+
+    // Method: read
+    // Description: Parses a partition's text file, or decompresses one of its blocks, into a separate
+    // store, on any thread.
+    private TransactionStore read(Load load) {
+        TransactionStore rows = new TransactionStore();
+        try {
+            if (load.block != Load.TEXT_FILE) {
+                load.partition.blocks.read(load.block, rows);
+                return rows;
+            }
+            TransactionParser parser = new TransactionParser();
+            try (InputStream in = Files.newInputStream(file(load.partition.month))) {
+                parser.parse(in, rows);
+            }
+            FinancialTracker.PARSE_ERRORS.add(parser.getBadLineCount());
+            if (parser.getBadLineCount() > 0) {
+                System.out.printf("Skipped %d invalid line(s) in %s, first bad line: %d%n", parser.getBadLineCount(),
+                        file(load.partition.month).getFileName(), parser.getFirstBadLine());
+            }
+            load.byteCount = parser.getByteCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+
+    // Method: add
+    // Description: Appends the rows read for a partition file or block to the ledger and marks it loaded.
+    // Returns the number of rows added.
+    private int add(Load load, TransactionStore rows) {
+        IntList all = new IntList(Math.max(rows.size(), 1));
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        for (int row = 0; row < rows.size(); row++) {
+            all.add(row);
+            firstDay = Math.min(firstDay, rows.getEpochDay(row));
+            lastDay = Math.max(lastDay, rows.getEpochDay(row));
+        }
+        ledger.appendAll(rows, all);
+
+        Partition partition = load.partition;
+        if (load.block != Load.TEXT_FILE) {
+            partition.blockLoaded[load.block] = true;
+            return rows.size();
+        }
+
+        // The file itself is now the best source of the partition's statistics
+        partition.loaded = true;
+        partition.rowCount = rows.size();
+        partition.byteCount = load.byteCount;
+        BlockFile blocks = partition.blocks;
+        if (blocks != null && blocks.getBlockCount() > 0) {
+            partition.rowCount += blocks.getRowCount();
+            firstDay = Math.min(firstDay, blocks.getFirstDay(0));
+            lastDay = Math.max(lastDay, blocks.getLastDay(blocks.getBlockCount() - 1));
+        }
+        if (firstDay <= lastDay) {
+            partition.firstDay = firstDay;
+            partition.lastDay = lastDay;
+        }
+        return rows.size();
+    }
+
+
+    // Method: blocks
+    // Description: Returns the block file of a compacted partition, reading its directory the first time.
+    private BlockFile blocks(Partition partition) throws IOException {
+        if (partition.blocks == null) {
+            partition.setBlocks(BlockFile.open(blockFile(partition.month)));
+        }
+        return partition.blocks;
+    }
+
+
+    // Method: writable
+    // Description: Returns the partition of a month with its log open, creating an empty partition
+    // for a month that has none yet. Existing partitions must already be loaded.
+    private Partition writable(YearMonth month) throws IOException {
+        Partition partition = partitions.get(month);
+        if (partition == null) {
+            partition = new Partition(month);
+            partition.loaded = true;
+            partitions.put(month, partition);
+        } else if (!partition.loaded) {
+            throw new IllegalStateException("Partition " + month + " must be loaded before rows are added to it");
+        }
+        if (partition.log == null) {
+            partition.log = new AppendLog(file(month), policy, intervalMillis);
+        }
+        return partition;
+    }
+
+
+    // Method: file
+    // Description: Returns the file of a month's partition.
+    private Path file(YearMonth month) {
+        return directory.resolve(month + SUFFIX);
+    }
+
+
+    // Method: blockFile
+    // Description: Returns the block file of a month's compacted partition.
+    private Path blockFile(YearMonth month) {
+        return directory.resolve(month + BlockFile.SUFFIX);
+    }
+
+
+    // Method: manifestText
+    // Description: Formats the manifest of the given partitions, leaving out those without rows.
+    private static String manifestText(TreeMap<YearMonth, Partition> partitions) {
+        StringBuilder text = new StringBuilder(MANIFEST_HEADER).append('\n');
+        for (Partition partition : partitions.values()) {
+            if (partition.rowCount == 0) {
+                continue;
+            }
+            text.append(partition.month).append('|')
+                    .append(LocalDate.ofEpochDay(partition.firstDay)).append('|')
+                    .append(LocalDate.ofEpochDay(partition.lastDay)).append('|')
+                    .append(partition.rowCount).append('|')
+                    .append(partition.byteCount).append('\n');
+        }
+        return text.toString();
+    }
+
+
+    // Method: writeManifest
+    // Description: Writes the manifest to a temporary file and moves it into place,
+    // so a crash never leaves half a manifest behind.
+    private static void writeManifest(Path directory, String text) throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        Path temporary = directory.resolve(MANIFEST_FILE + ".tmp");
+        Files.writeString(temporary, text, StandardCharsets.UTF_8);
+        Files.move(temporary, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    // Method: countLines
+    // Description: Counts the non-empty lines of a file without parsing them.
+    private static int countLines(Path file) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+
+    // Class: Load
+    // Description: A partition's text file, or one of its blocks, waiting to be loaded.
+    private static class Load {
+        private static final int TEXT_FILE = -1;
+
+        private final Partition partition;
+        private final int block;
+        // Set when a text file has been read
+        private long byteCount;
+
+        private Load(Partition partition, int block) {
+            this.partition = partition;
+            this.block = block;
+        }
+    }
+
+
+    // Class: Partition
+    // Description: One month's files: the date bounds, row count and text file size, and what is loaded.
+    private static class Partition {
+        private final YearMonth month;
+        private int firstDay = Integer.MAX_VALUE;
+        private int lastDay = Integer.MIN_VALUE;
+        private int rowCount;
+        private long byteCount;
+        // Whether the text file is loaded
+        private boolean loaded;
+        // Whether there is a block file, its directory once read, and which of its blocks are loaded
+        private boolean compacted;
+        private BlockFile blocks;
+        private boolean[] blockLoaded;
+        // Opened the first time a row is added to the month
+        private AppendLog log;
+
+        private Partition(YearMonth month) {
+            this.month = month;
+        }
+
+
+        // Method: record
+        // Description: Widens the date bounds and row count for rows added on the given day.
+        private void record(int epochDay, int rows) {
+            firstDay = Math.min(firstDay, epochDay);
+            lastDay = Math.max(lastDay, epochDay);
+            rowCount += rows;
+        }
+
+
+        // Method: setBlocks
+        // Description: Sets the block file of the partition, with none of its blocks loaded.
+        private void setBlocks(BlockFile blocks) {
+            this.blocks = blocks;
+            blockLoaded = new boolean[blocks.getBlockCount()];
+        }
+
+
+        // Method: isAnyBlockLoaded
+        // Description: Returns whether some block of the block file is loaded.
+        private boolean isAnyBlockLoaded() {
+            if (blockLoaded != null) {
+                for (boolean loaded : blockLoaded) {
+                    if (loaded) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+
+        // Method: isAnyBlockUnloaded
+        // Description: Returns whether some block of the block file is not loaded yet.
+        private boolean isAnyBlockUnloaded() {
+            if (!compacted) {
+                return false;
+            }
+            if (blockLoaded == null) {
+                return true;
+            }
+            for (boolean loaded : blockLoaded) {
+                if (!loaded) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+
+// Class: ParallelTransactionLoader
+// Description: Loads a transactions file by memory-mapping it, splitting it into newline-aligned
+// chunks and parsing the chunks in parallel on a fork-join pool. Results are merged in file order.
+public class ParallelTransactionLoader {
+    // Chunks stay well under the 2 GB limit of a single mapping
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    // More chunks than threads lets fast workers pick up extra chunks
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    // Load statistics for the last call to load
+    private long rowCount;
+    private long badLineCount;
+    private long firstBadLine;
+    private long byteCount;
+    private long elapsedNanos;
+    private int chunkCount;
+
+
+    // Constructor: ParallelTransactionLoader
+    // Description: Creates a loader that parses chunks on the given pool.
+    public ParallelTransactionLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+
+    // Method: load
+    // Description: Parses the whole file and appends every valid transaction to the store in file order.
+    public void load(Path path, TransactionStore store) throws IOException {
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<ChunkTask> chunks = split(channel);
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(chunks);
+                }
+            });
+
+            // Merge in file order, remapping each chunk's dictionary ids,
+            // and turn chunk-relative line numbers into file line numbers
+            rowCount = 0;
+            badLineCount = 0;
+            firstBadLine = 0;
+            long linesBefore = 0;
+            for (ChunkTask chunk : chunks) {
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                store.addAll(chunk.store);
+                rowCount += chunk.parser.getRowCount();
+                badLineCount += chunk.parser.getBadLineCount();
+                if (firstBadLine == 0 && chunk.parser.getFirstBadLine() > 0) {
+                    firstBadLine = linesBefore + chunk.parser.getFirstBadLine();
+                }
+                linesBefore += chunk.parser.getLineCount();
+            }
+            chunkCount = chunks.size();
+            byteCount = chunks.isEmpty() ? 0 : chunks.get(chunks.size() - 1).offset + chunks.get(chunks.size() - 1).length;
+        }
+
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+
+    // Method: split
+    // Description: Cuts the file into chunks whose boundaries fall just after a newline.
+    private List<ChunkTask> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD);
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, target));
+
+        List<ChunkTask> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            if (end < size) {
+                end = nextLineStart(channel, end, size);
+            }
+            chunks.add(new ChunkTask(channel, start, end - start));
+            start = end;
+        }
+        return chunks;
+    }
+
+
+    // Method: nextLineStart
+    // Description: Returns the position just after the first newline at or after position,
+    // or the end of the file if there is none.
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        long windowSize = 4096;
+        while (position < size) {
+            long length = Math.min(windowSize, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int newline = TransactionParser.indexOf(window, 0, (int) length, (byte) '\n');
+            if (newline >= 0) {
+                return position + newline + 1;
+            }
+            position += length;
+        }
+        return size;
+    }
+
+
+    // Class: ChunkTask
+    // Description: Maps and parses one chunk of the file into its own store.
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long offset;
+        private final long length;
+        private final TransactionParser parser = new TransactionParser();
+        private final TransactionStore store = new TransactionStore();
+        private IOException error;
+
+        ChunkTask(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                parser.parseChunk(buffer, store);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+    }
+
+
+    // Getter Methods
+    // Description: Return the statistics of the last load.
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getBadLineCount() {
+        return badLineCount;
+    }
+
+    public long getFirstBadLine() {
+        return firstBadLine;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    // Method: getRowsPerSecond
+    // Description: Returns the throughput of the last load.
+    public long getRowsPerSecond() {
+        return elapsedNanos == 0 ? rowCount : rowCount * 1_000_000_000L / elapsedNanos;
+    }
+}
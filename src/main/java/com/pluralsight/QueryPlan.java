@@ -0,0 +1,349 @@
+package com.pluralsight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+
+// Class: QueryPlan
+// Description: A TransactionQuery planned against one LedgerView.
+// Planning resolves the text criteria to dictionary ids once and counts how many rows each usable
+// index would yield (the date range, a text posting list or the amount range). The smallest one
+// becomes the access path, so the rows read are as few as possible. The remaining criteria are
+// compiled into one predicate that checks the most selective criterion first and stops at the first
+// one that fails. explain() describes the choice and, once executed, how many rows were examined.
+// A plan may be executed again; it is meant for one thread at a time.
+public class QueryPlan {
+    // Where the candidate rows are read from
+    private enum Access {
+        ALL_ROWS("every row, in date order"),
+        DATE_RANGE("date index"),
+        DESCRIPTION("description index"),
+        VENDOR("vendor index"),
+        AMOUNT_RANGE("amount index"),
+        LARGEST_AMOUNTS("amount index, largest amounts first");
+
+        private final String label;
+        private final Metrics.Histogram timing;
+
+        Access(String label) {
+            this.label = label;
+            timing = Metrics.histogram("tracker_query_seconds", "access=\"" + name().toLowerCase() + "\"",
+                    "Time to execute a custom search, by the access path its plan chose");
+        }
+    }
+
+    private static final Metrics.Counter ROWS_EXAMINED = Metrics.counter("tracker_query_rows_examined_total", "",
+            "Rows read by custom searches before their checks");
+    private static final Metrics.Counter ROWS_MATCHED = Metrics.counter("tracker_query_rows_matched_total", "",
+            "Rows returned by custom searches");
+
+    private final TransactionStore store;
+    private final DateIndex dateIndex;
+    private final AmountIndex amountIndex;
+    private final int limit;
+
+    private final Access access;
+    private final int candidateCount;
+    // Positions of the date range, and the amount range
+    private final int from;
+    private final int to;
+    private final long minAmount;
+    private final long maxAmount;
+    // The posting list to walk for the DESCRIPTION and VENDOR paths
+    private final TextIndex textIndex;
+    private final IntList textIds;
+
+    private final List<Filter> filters = new ArrayList<>();
+    private final IntPredicate predicate;
+
+    // Statistics of the last execution, -1 before the first one
+    private int examined = -1;
+    private int matched = -1;
+
+
+    // Constructor: QueryPlan
+    // Description: Plans a query against a view; see TransactionQuery.plan.
+    QueryPlan(TransactionQuery query, LedgerView view) {
+        store = view.getStore();
+        dateIndex = view.getDateIndex();
+        amountIndex = view.getAmountIndex();
+        limit = query.getLimit();
+        TextIndex descriptionIndex = view.getDescriptionIndex();
+        TextIndex vendorIndex = view.getVendorIndex();
+        TransactionStore transactions = store;
+
+        // Missing dates and amounts become the widest possible range
+        int startDay = query.getStartDate() == null ? Integer.MIN_VALUE : (int) query.getStartDate().toEpochDay();
+        int endDay = query.getEndDate() == null ? Integer.MAX_VALUE : (int) query.getEndDate().toEpochDay();
+        from = query.getStartDate() == null ? 0 : dateIndex.lowerBound(startDay);
+        to = query.getEndDate() == null ? dateIndex.size() : dateIndex.upperBound(endDay);
+        minAmount = query.getMinCents() == null ? Long.MIN_VALUE : query.getMinCents();
+        maxAmount = query.getMaxCents() == null ? Long.MAX_VALUE : query.getMaxCents();
+
+        // Every criterion that was given, with the number of rows it lets through
+        Filter dateFilter = null;
+        if (query.getStartDate() != null || query.getEndDate() != null) {
+            dateFilter = new Filter("date range", Math.max(to - from, 0), row -> {
+                int day = transactions.getEpochDay(row);
+                return day >= startDay && day <= endDay;
+            });
+        }
+        Filter descriptionFilter = null;
+        IntList descriptionIds = null;
+        if (query.getDescription() != null) {
+            descriptionIds = descriptionIndex.containingIds(query.getDescription());
+            boolean[] mask = descriptionIndex.toMask(descriptionIds);
+            descriptionFilter = new Filter("description", descriptionIndex.countRows(descriptionIds),
+                    row -> mask[transactions.getDescriptionId(row)]);
+        }
+        Filter vendorFilter = null;
+        IntList vendorIds = null;
+        if (query.getVendor() != null) {
+            vendorIds = vendorIndex.containingIds(query.getVendor());
+            boolean[] mask = vendorIndex.toMask(vendorIds);
+            vendorFilter = new Filter("vendor", vendorIndex.countRows(vendorIds),
+                    row -> mask[transactions.getVendorId(row)]);
+        }
+        Filter amountFilter = null;
+        if (query.getMinCents() != null || query.getMaxCents() != null) {
+            long min = minAmount;
+            long max = maxAmount;
+            amountFilter = new Filter("amount range", amountIndex.count(min, max), row -> {
+                long amount = transactions.getAmountCents(row);
+                return amount >= min && amount <= max;
+            });
+        }
+
+        // The access path is the index that yields the fewest rows; ties keep the earlier one,
+        // so the date range, whose rows need no sorting afterwards, wins when nothing is more selective
+        Access chosen = dateFilter == null ? Access.ALL_ROWS : Access.DATE_RANGE;
+        int fewest = dateFilter == null ? store.size() : dateFilter.passCount;
+        if (descriptionFilter != null && descriptionFilter.passCount < fewest) {
+            chosen = Access.DESCRIPTION;
+            fewest = descriptionFilter.passCount;
+        }
+        if (vendorFilter != null && vendorFilter.passCount < fewest) {
+            chosen = Access.VENDOR;
+            fewest = vendorFilter.passCount;
+        }
+        // Walking the amount index from the top passes about limit * size / fewest rows before it
+        // has found limit matches, so it wins unless the other criteria are narrower than that
+        if (limit > 0 && (long) limit * store.size() < (long) fewest * fewest) {
+            chosen = Access.LARGEST_AMOUNTS;
+        } else if (amountFilter != null && amountFilter.passCount < fewest) {
+            chosen = Access.AMOUNT_RANGE;
+            fewest = amountFilter.passCount;
+        }
+        access = chosen;
+        candidateCount = fewest;
+        textIndex = access == Access.DESCRIPTION ? descriptionIndex : access == Access.VENDOR ? vendorIndex : null;
+        textIds = access == Access.DESCRIPTION ? descriptionIds : access == Access.VENDOR ? vendorIds : null;
+
+        // The access path already guarantees its own criterion; the rest are checked most selective first
+        addFilter(dateFilter, access == Access.DATE_RANGE);
+        addFilter(descriptionFilter, access == Access.DESCRIPTION);
+        addFilter(vendorFilter, access == Access.VENDOR);
+        addFilter(amountFilter, access == Access.AMOUNT_RANGE || access == Access.LARGEST_AMOUNTS);
+        filters.sort((a, b) -> Integer.compare(a.passCount, b.passCount));
+        predicate = compile(filters);
+    }
+
+
+    // Method: execute
+    // Description: Runs the plan and returns the matching rows: in date and time order, or largest
+    // amount first when the query asks for the largest amounts.
+    public IntList execute() {
+        Metrics.Timer timer = access.timing.start();
+        IntList rows;
+        examined = 0;
+        if (access == Access.LARGEST_AMOUNTS) {
+            rows = AmountIndex.sortLargestFirst(store, amountIndex.largest(minAmount, maxAmount, limit, row -> {
+                examined++;
+                return predicate.test(row);
+            }));
+        } else {
+            IntList candidates = candidates();
+            int count = candidates == null ? Math.max(to - from, 0) : candidates.size();
+            rows = new IntList();
+            for (int i = 0; i < count; i++) {
+                int row = candidates == null ? dateIndex.rowAt(from + i) : candidates.get(i);
+                if (predicate.test(row)) {
+                    rows.add(row);
+                }
+            }
+            examined = count;
+            if (limit > 0) {
+                rows = AmountIndex.largest(store, rows, limit);
+            } else if (candidates != null) {
+                // Results come in date order whichever index found them
+                rows = sortByDate(store, rows);
+            }
+        }
+        matched = rows.size();
+        timer.stop(matched);
+        ROWS_EXAMINED.add(examined);
+        ROWS_MATCHED.add(matched);
+        return rows;
+    }
+
+
+    // Method: predicate
+    // Description: Returns the compiled predicate of the criteria the access path does not cover.
+    public IntPredicate predicate() {
+        return predicate;
+    }
+
+
+    // Method: explain
+    // Description: Describes the access path, the order of the remaining checks and, after execute(),
+    // how many rows were examined.
+    public String explain() {
+        StringBuilder text = new StringBuilder("Plan: ").append(access.label);
+        if (access == Access.LARGEST_AMOUNTS) {
+            text.append(", stopping after ").append(limit).append(" matches");
+        } else {
+            text.append(" (").append(candidateCount).append(" of ").append(store.size()).append(" rows)");
+        }
+        if (filters.isEmpty()) {
+            text.append(", no further checks");
+        }
+        for (int i = 0; i < filters.size(); i++) {
+            Filter filter = filters.get(i);
+            text.append(i == 0 ? ", then check " : ", ").append(filter.name)
+                    .append(String.format(Locale.ROOT, " (~%.1f%% pass)",
+                            store.size() == 0 ? 0.0 : filter.passCount * 100.0 / store.size()));
+        }
+        if (limit > 0 && access != Access.LARGEST_AMOUNTS) {
+            text.append(", then keep the ").append(limit).append(" largest amounts");
+        }
+        if (examined >= 0) {
+            text.append(System.lineSeparator())
+                    .append("Examined ").append(examined).append(" rows, ").append(matched).append(" matched");
+        }
+        return text.toString();
+    }
+
+
+    // Method: candidates
+    // Description: Returns the candidate rows of an index path, or null to read the date index positions.
+    private IntList candidates() {
+        switch (access) {
+            case DESCRIPTION:
+            case VENDOR:
+                return textIndex.rows(textIds);
+            case AMOUNT_RANGE:
+                return amountIndex.rows(minAmount, maxAmount);
+            default:
+                return null;
+        }
+    }
+
+
+    // Method: sortByDate
+    // Description: Sorts rows by date and time, rows at the same time in row order, as the date index
+    // orders them.
+    private static IntList sortByDate(TransactionStore store, IntList rows) {
+        int count = rows.size();
+        if (count < 2) {
+            return rows;
+        }
+        long minKey = Long.MAX_VALUE;
+        long maxKey = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            long key = dateKey(store, rows.get(i));
+            minKey = Math.min(minKey, key);
+            maxKey = Math.max(maxKey, key);
+        }
+        int[] sorted = new int[count];
+        if (maxKey - minKey < (1L << 32)) {
+            // Pack (key above the earliest, row) into one long so a primitive sort orders both
+            long[] packed = new long[count];
+            for (int i = 0; i < count; i++) {
+                int row = rows.get(i);
+                packed[i] = ((dateKey(store, row) - minKey) << 31) | row;
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < count; i++) {
+                sorted[i] = (int) (packed[i] & Integer.MAX_VALUE);
+            }
+        } else {
+            // Dates spread over more than a century: fall back to a comparator sort
+            Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = rows.get(i);
+            }
+            Arrays.sort(boxed, (a, b) -> {
+                int byDate = Long.compare(dateKey(store, a), dateKey(store, b));
+                return byDate != 0 ? byDate : Integer.compare(a, b);
+            });
+            for (int i = 0; i < count; i++) {
+                sorted[i] = boxed[i];
+            }
+        }
+        return new IntList(sorted, count);
+    }
+
+
+    // Method: dateKey
+    // Description: Returns the date and time of a row as seconds, the sort key of the date index.
+    private static long dateKey(TransactionStore store, int row) {
+        return (long) store.getEpochDay(row) * 86400 + store.getSecondOfDay(row);
+    }
+
+
+    // Method: addFilter
+    // Description: Adds a criterion to the checks unless it was given no value or the access path covers it.
+    private void addFilter(Filter filter, boolean covered) {
+        if (filter != null && !covered) {
+            filters.add(filter);
+        }
+    }
+
+
+    // Method: compile
+    // Description: Chains the checks into one predicate that stops at the first failing check.
+    // The common cases of one and two checks get their own lambdas instead of a loop.
+    private static IntPredicate compile(List<Filter> filters) {
+        IntPredicate[] tests = new IntPredicate[filters.size()];
+        for (int i = 0; i < tests.length; i++) {
+            tests[i] = filters.get(i).test;
+        }
+        switch (tests.length) {
+            case 0:
+                return row -> true;
+            case 1:
+                return tests[0];
+            case 2:
+                IntPredicate first = tests[0];
+                IntPredicate second = tests[1];
+                return row -> first.test(row) && second.test(row);
+            default:
+                return row -> {
+                    for (IntPredicate test : tests) {
+                        if (!test.test(row)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+        }
+    }
+
+
+    // Class: Filter
+    // Description: One criterion as a row check, with the number of rows of the view that pass it.
+    private static class Filter {
+        private final String name;
+        private final int passCount;
+        private final IntPredicate test;
+
+        private Filter(String name, int passCount, IntPredicate test) {
+            this.name = name;
+            this.passCount = passCount;
+            this.test = test;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.pluralsight;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+// Class: StringDictionary
+// Description: Maps each distinct string to a small int id so a column can store ids instead of Strings.
+// Lookups can be done straight from UTF-8 bytes, so a value that is already in the dictionary
+// never has to be turned into a String again.
+public class StringDictionary {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Values by id, kept both as Strings and as the UTF-8 bytes used for hashing
+    private String[] values;
+    private byte[][] bytes;
+    private int[] hashes;
+    private int size;
+
+    // Open-addressing hash table holding id + 1 (0 means empty)
+    private int[] slots;
+
+
+    // Constructor: StringDictionary
+    // Description: Creates an empty dictionary.
+    public StringDictionary() {
+        values = new String[INITIAL_CAPACITY];
+        bytes = new byte[INITIAL_CAPACITY][];
+        hashes = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY * 2];
+    }
+
+
+    // Constructor: StringDictionary
+    // Description: Creates a read-only view of another dictionary's first size values, sharing its arrays.
+    private StringDictionary(StringDictionary source) {
+        this.values = source.values;
+        this.bytes = source.bytes;
+        this.hashes = source.hashes;
+        this.slots = source.slots;
+        this.size = source.size;
+    }
+
+
+    // Method: snapshot
+    // Description: Returns a read-only view of the values interned so far, for readers on other threads.
+    // The view shares this dictionary's arrays, which is safe because existing entries never change:
+    // new values go past the view's size, and growing or rehashing replaces the arrays instead of
+    // changing them. The view must only be read (get, find, size).
+    public StringDictionary snapshot() {
+        return new StringDictionary(this);
+    }
+
+
+    // Method: intern
+    // Description: Returns the id of the value, adding it if it is new.
+    public int intern(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        return intern(ByteBuffer.wrap(utf8), 0, utf8.length);
+    }
+
+
+    // Method: intern
+    // Description: Returns the id of the UTF-8 bytes between start and end, adding them if they are new.
+    public int intern(ByteBuffer buf, int start, int end) {
+        int hash = hash(buf, start, end);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(bytes[id], buf, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] copy = new byte[end - start];
+        buf.get(start, copy);
+        int id = add(copy, new String(copy, StandardCharsets.UTF_8), hash);
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+
+    // Method: find
+    // Description: Returns the id of the value, or -1 if it is not in the dictionary.
+    public int find(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(utf8);
+        int hash = hash(buf, 0, utf8.length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            // A snapshot may see slots filled after it was taken; those ids are past its size
+            if (id < size && hashes[id] == hash && Arrays.equals(bytes[id], utf8)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+
+    // Method: get
+    // Description: Returns the value with the given id.
+    public String get(int id) {
+        return values[id];
+    }
+
+
+    // Method: size
+    // Description: Returns the number of distinct values.
+    public int size() {
+        return size;
+    }
+
+
+    // Method: add
+    // Description: Stores a new value and returns its id.
+    private int add(byte[] utf8, String value, int hash) {
+        if (size == values.length) {
+            int capacity = size * 2;
+            values = Arrays.copyOf(values, capacity);
+            bytes = Arrays.copyOf(bytes, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        values[size] = value;
+        bytes[size] = utf8;
+        hashes[size] = hash;
+        return size++;
+    }
+
+
+    // Method: rehash
+    // Description: Doubles the hash table and re-inserts every id.
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+
+    // Method: hash
+    // Description: Hashes the bytes between start and end, spreading the bits for the power-of-two table.
+    private static int hash(ByteBuffer buf, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buf.get(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+
+    // Method: matches
+    // Description: Compares stored bytes with the bytes between start and end.
+    private static boolean matches(byte[] stored, ByteBuffer buf, int start, int end) {
+        if (stored.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < stored.length; i++) {
+            if (stored[i] != buf.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,277 @@
+package com.pluralsight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+// Class: TextIndex
+// Description: Inverted index over one dictionary-encoded text column (vendor or description).
+// It keeps three kinds of posting lists that are filled as rows are added:
+//   - dictionary id -> rows that use the value
+//   - lowercased value -> dictionary ids, for case-insensitive exact matches
+//   - trigram of the lowercased value -> dictionary ids, for case-insensitive substring matches
+// Lowercased values and trigrams are given dense keys by their own StringDictionary.
+// Searches work on the distinct values and their posting lists, never on every row.
+// snapshot() shares everything with the live index; only the posting lists added to since the last
+// snapshot are published again, so a publish costs O(rows added), however many values there are.
+// Lists returned by the lookup methods belong to the index and must not be modified.
+public class TextIndex {
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private final StringDictionary dictionary;
+
+    // Lowercased value of every dictionary id indexed so far. Slots past valueCount are only filled
+    // after a snapshot was taken and growing replaces the array, so snapshots share it.
+    private String[] normalizedById;
+    private int valueCount;
+    private final StringDictionary values;
+    private final StringDictionary trigrams;
+    private final PostingLists rowsById;
+    private final PostingLists idsByValue;
+    private final PostingLists idsByTrigram;
+
+
+    // Constructor: TextIndex
+    // Description: Creates an empty index for the values of the given dictionary.
+    public TextIndex(StringDictionary dictionary) {
+        this(dictionary, new String[16], 0, new StringDictionary(), new StringDictionary(),
+                new PostingLists(), new PostingLists(), new PostingLists());
+    }
+
+
+    // Constructor: TextIndex
+    // Description: Creates an index over the given parts, which snapshots pass in as read-only versions.
+    private TextIndex(StringDictionary dictionary, String[] normalizedById, int valueCount, StringDictionary values,
+                      StringDictionary trigrams, PostingLists rowsById, PostingLists idsByValue,
+                      PostingLists idsByTrigram) {
+        this.dictionary = dictionary;
+        this.normalizedById = normalizedById;
+        this.valueCount = valueCount;
+        this.values = values;
+        this.trigrams = trigrams;
+        this.rowsById = rowsById;
+        this.idsByValue = idsByValue;
+        this.idsByTrigram = idsByTrigram;
+    }
+
+
+    // Method: snapshot
+    // Description: Returns a read-only view of the index as it is now, over a snapshot of its dictionary.
+    // The view must only be searched, never added to.
+    public TextIndex snapshot(StringDictionary dictionarySnapshot) {
+        return new TextIndex(dictionarySnapshot, normalizedById, valueCount, values.snapshot(), trigrams.snapshot(),
+                rowsById.snapshot(), idsByValue.snapshot(), idsByTrigram.snapshot());
+    }
+
+
+    // Method: add
+    // Description: Records that the row uses the value with the given dictionary id.
+    // Rows must be added in increasing order so every posting list stays sorted.
+    public void add(int row, int id) {
+        // The first row of a new value also indexes the value itself
+        while (valueCount <= id) {
+            indexValue(valueCount);
+        }
+        rowsById.add(id, row);
+    }
+
+
+    // Method: exactIds
+    // Description: Returns the ids of every value equal to text, ignoring case.
+    public IntList exactIds(String text) {
+        int key = values.find(normalize(text));
+        return key < 0 ? new IntList() : idsByValue.get(key);
+    }
+
+
+    // Method: containingIds
+    // Description: Returns the ids of every value that contains text, ignoring case, in ascending order.
+    public IntList containingIds(String text) {
+        String needle = normalize(text);
+        IntList candidates;
+        if (needle.length() < TRIGRAM_LENGTH) {
+            // Too short for a trigram: check each distinct value, which is still far fewer than rows
+            candidates = null;
+        } else {
+            candidates = trigramCandidates(needle);
+            if (candidates.size() == 0) {
+                return candidates;
+            }
+        }
+
+        IntList ids = new IntList();
+        int count = candidates == null ? valueCount : candidates.size();
+        for (int i = 0; i < count; i++) {
+            int id = candidates == null ? i : candidates.get(i);
+            // Trigrams only narrow the candidates, the actual substring still has to be checked
+            if (normalizedById[id].contains(needle)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+
+    // Method: rows
+    // Description: Returns the rows that use the value with the given id.
+    public IntList rows(int id) {
+        IntList rows = rowsById.get(id);
+        return rows == null ? new IntList() : rows;
+    }
+
+
+    // Method: rows
+    // Description: Returns the rows that use any of the given ids, in ascending row order.
+    public IntList rows(IntList ids) {
+        if (ids.size() == 1) {
+            return rows(ids.get(0));
+        }
+        IntList result = new IntList(Math.max(countRows(ids), 1));
+        for (int i = 0; i < ids.size(); i++) {
+            result.addAll(rows(ids.get(i)));
+        }
+        result.sort();
+        return result;
+    }
+
+
+    // Method: countRows
+    // Description: Returns how many rows use any of the given ids, without building the list.
+    public int countRows(IntList ids) {
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            count += rows(ids.get(i)).size();
+        }
+        return count;
+    }
+
+
+    // Method: toMask
+    // Description: Turns a list of ids into a lookup table indexed by dictionary id.
+    public boolean[] toMask(IntList ids) {
+        boolean[] mask = new boolean[dictionary.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            mask[ids.get(i)] = true;
+        }
+        return mask;
+    }
+
+
+    // Method: indexValue
+    // Description: Adds a new dictionary value to the exact-match and trigram posting lists.
+    private void indexValue(int id) {
+        String value = normalize(dictionary.get(id));
+        if (valueCount == normalizedById.length) {
+            normalizedById = Arrays.copyOf(normalizedById, valueCount * 2);
+        }
+        normalizedById[valueCount++] = value;
+        idsByValue.add(values.intern(value), id);
+
+        for (int i = 0; i + TRIGRAM_LENGTH <= value.length(); i++) {
+            int key = trigrams.intern(trigram(value, i));
+            // A trigram repeated inside one value is only recorded once
+            if (idsByTrigram.get(key) == null || idsByTrigram.get(key).last() != id) {
+                idsByTrigram.add(key, id);
+            }
+        }
+    }
+
+
+    // Method: trigramCandidates
+    // Description: Intersects the id lists of every trigram in the needle, smallest list first.
+    private IntList trigramCandidates(String needle) {
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= needle.length(); i++) {
+            int key = trigrams.find(trigram(needle, i));
+            if (key < 0) {
+                return new IntList();
+            }
+            lists.add(idsByTrigram.get(key));
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        IntList result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.size() > 0; i++) {
+            result = IntList.intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+
+    // Method: trigram
+    // Description: Returns the three chars starting at index, the key of a trigram.
+    private static String trigram(String value, int index) {
+        return value.substring(index, index + TRIGRAM_LENGTH);
+    }
+
+
+    // Method: normalize
+    // Description: Lowercases text the same way for indexing and for searching.
+    private static String normalize(String text) {
+        return text.toLowerCase();
+    }
+
+
+    // Class: PostingLists
+    // Description: Sorted int lists under dense int keys. The live index appends to plain IntLists;
+    // snapshot() puts an IntList snapshot of each list added to since the last one into a
+    // VersionedIntMap and returns a read-only version of that map, so unchanged lists are shared.
+    private static class PostingLists {
+        // Live only: the lists being added to, and the keys added to since the last snapshot
+        private final List<IntList> live;
+        private IntList changed = new IntList();
+        private int[] changedInVersion = new int[16];
+        private int version = 1;
+        private final VersionedIntMap<IntList> published;
+
+        private PostingLists() {
+            this(new ArrayList<>(), new VersionedIntMap<>());
+        }
+
+        private PostingLists(List<IntList> live, VersionedIntMap<IntList> published) {
+            this.live = live;
+            this.published = published;
+        }
+
+
+        // Method: add
+        // Description: Appends a value to the list under key, creating lists up to key if needed.
+        private void add(int key, int value) {
+            while (live.size() <= key) {
+                live.add(new IntList(1));
+            }
+            if (key >= changedInVersion.length) {
+                changedInVersion = Arrays.copyOf(changedInVersion, Math.max(key + 1, changedInVersion.length * 2));
+            }
+            live.get(key).add(value);
+            if (changedInVersion[key] != version) {
+                changedInVersion[key] = version;
+                changed.add(key);
+            }
+        }
+
+
+        // Method: get
+        // Description: Returns the list under key, or null if there is none.
+        private IntList get(int key) {
+            if (live == null) {
+                return published.get(key);
+            }
+            return key < live.size() ? live.get(key) : null;
+        }
+
+
+        // Method: snapshot
+        // Description: Publishes the lists added to since the last snapshot and returns a read-only version.
+        private PostingLists snapshot() {
+            for (int i = 0; i < changed.size(); i++) {
+                int key = changed.get(i);
+                published.put(key, live.get(key).snapshot());
+            }
+            changed = new IntList();
+            version++;
+            return new PostingLists(null, published.snapshot());
+        }
+    }
+}
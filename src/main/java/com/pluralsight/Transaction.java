@@ -5,23 +5,23 @@ import java.time.LocalTime;
 
 
 // Class: Transaction
-// Description: Represents a financial transaction
+// Description: Represents a financial transaction. The amount is kept in cents (see Money).
 public class Transaction {
     private LocalDate date;
     private LocalTime time;
     private String description;
     private String vendor;
-    private double amount;
+    private long amountCents;
 
 
     // Constructor: Transaction
     // Description: Creates a new Transaction object with all fields.
-    public Transaction(LocalDate date, LocalTime time, String description, String vendor, double amount) {
+    public Transaction(LocalDate date, LocalTime time, String description, String vendor, long amountCents) {
         this.date = date;
         this.time = time;
         this.description = description;
         this.vendor = vendor;
-        this.amount = amount;
+        this.amountCents = amountCents;
     }
 
 
@@ -43,8 +43,8 @@ public class Transaction {
         return vendor;
     }
 
-    public double getAmount() {
-        return amount;
+    public long getAmountCents() {
+        return amountCents;
     }
 
 
@@ -66,15 +66,15 @@ public class Transaction {
         this.vendor = vendor;
     }
 
-    public void setAmount(double amount) {
-        this.amount = amount;
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
     }
 
 
     // Method: toString
     // Description: Converts the Transaction object into a single formatted line
     public String toString() {
-        // The dash (-) on the left represents to left-align a string
-        return String.format("%-12s %-10s %-20s %-20s %10.2f", date.toString(), time.toString(), description, vendor, amount);
+        // Same layout as String.format("%-12s %-10s %-20s %-20s %10.2f", ...), without parsing a format string
+        return LedgerRenderer.format(this);
     }
 }
@@ -0,0 +1,282 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+
+
+// Class: TransactionParser
+// Description: Reads pipe-delimited transaction rows (date|time|description|vendor|amount) straight
+// from a byte buffer, either a heap buffer or a memory-mapped file chunk, into a TransactionStore.
+// Every field is parsed in place; a String is only created the first time a description or vendor is seen.
+public class TransactionParser {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte PIPE = '|';
+    private static final byte NEWLINE = '\n';
+    private static final byte RETURN = '\r';
+
+    // Returned by the field parsers for a field that is not valid
+    static final int INVALID = Integer.MIN_VALUE;
+    static final long INVALID_AMOUNT = Money.INVALID;
+    // Days from 0000-01-01 to 1970-01-01, as used by LocalDate.toEpochDay
+    private static final long DAYS_0000_TO_1970 = (146097 * 5L) - (30L * 365L + 7L);
+
+    // Load statistics for the last call to parse
+    private long rowCount;
+    private long badLineCount;
+    private long firstBadLine;
+    private long lineCount;
+    private long byteCount;
+    private long elapsedNanos;
+
+
+    // Method: parse
+    // Description: Reads every line of the stream and adds each valid transaction to the store.
+    // Malformed lines are skipped and counted instead of aborting the whole load.
+    public void parse(InputStream in, TransactionStore store) throws IOException {
+        long start = System.nanoTime();
+        reset();
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        int length = 0;
+
+        while (true) {
+            int read = in.read(buffer, length, buffer.length - length);
+            boolean endOfStream = read < 0;
+            if (!endOfStream) {
+                length += read;
+                byteCount += read;
+            }
+
+            // Parse every complete line currently in the buffer
+            int lineStart = parseLines(view, 0, length, endOfStream, store);
+            if (endOfStream) {
+                break;
+            }
+
+            // Move the partial line to the front, growing the buffer if one line fills all of it
+            length -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                view = ByteBuffer.wrap(buffer);
+            }
+        }
+
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+
+    // Method: parseChunk
+    // Description: Parses a newline-aligned slice of the file, such as a memory-mapped chunk.
+    // Line numbers restart at 1 for each chunk.
+    public void parseChunk(ByteBuffer buf, TransactionStore store) {
+        long start = System.nanoTime();
+        reset();
+        parseLines(buf, buf.position(), buf.limit(), true, store);
+        byteCount = buf.limit() - buf.position();
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+
+    // Method: reset
+    // Description: Clears the statistics before a new parse.
+    private void reset() {
+        rowCount = 0;
+        badLineCount = 0;
+        firstBadLine = 0;
+        lineCount = 0;
+        byteCount = 0;
+    }
+
+
+    // Method: parseLines
+    // Description: Parses the complete lines between start and end. When last is true the
+    // trailing bytes are treated as a final line without a newline.
+    // Returns the index where the first unparsed (partial) line begins.
+    private int parseLines(ByteBuffer buf, int start, int end, boolean last, TransactionStore store) {
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == NEWLINE) {
+                handleLine(buf, lineStart, i, store);
+                lineStart = i + 1;
+            }
+        }
+        if (last && lineStart < end) {
+            handleLine(buf, lineStart, end, store);
+            lineStart = end;
+        }
+        return lineStart;
+    }
+
+
+    // Method: handleLine
+    // Description: Parses one line and records it as either a transaction or a bad line.
+    private void handleLine(ByteBuffer buf, int start, int end, TransactionStore store) {
+        lineCount++;
+        if (end > start && buf.get(end - 1) == RETURN) {
+            end--;
+        }
+        // Blank lines are ignored rather than reported
+        if (end == start) {
+            return;
+        }
+
+        if (!parseLine(buf, start, end, store)) {
+            badLineCount++;
+            if (firstBadLine == 0) {
+                firstBadLine = lineCount;
+            }
+            return;
+        }
+        rowCount++;
+    }
+
+
+    // Method: parseLine
+    // Description: Parses the bytes between start and end and appends the row to the store.
+    // Returns false when the line does not have five valid fields.
+    public static boolean parseLine(ByteBuffer buf, int start, int end, TransactionStore store) {
+        int dateEnd = indexOf(buf, start, end, PIPE);
+        if (dateEnd < 0) return false;
+        int timeEnd = indexOf(buf, dateEnd + 1, end, PIPE);
+        if (timeEnd < 0) return false;
+        int descriptionEnd = indexOf(buf, timeEnd + 1, end, PIPE);
+        if (descriptionEnd < 0) return false;
+        int vendorEnd = indexOf(buf, descriptionEnd + 1, end, PIPE);
+        if (vendorEnd < 0) return false;
+
+        int epochDay = parseEpochDay(buf, start, dateEnd);
+        int secondOfDay = parseSecondOfDay(buf, dateEnd + 1, timeEnd);
+        if (epochDay == INVALID || secondOfDay == INVALID) return false;
+
+        long cents = Money.parseCents(buf, vendorEnd + 1, end);
+        if (cents == INVALID_AMOUNT) return false;
+
+        // Repeated descriptions and vendors are found by their bytes, without creating a String
+        int descriptionId = store.getDescriptions().intern(buf, timeEnd + 1, descriptionEnd);
+        int vendorId = store.getVendors().intern(buf, descriptionEnd + 1, vendorEnd);
+
+        store.add(epochDay, secondOfDay, cents, descriptionId, vendorId);
+        return true;
+    }
+
+
+    // Method: parseEpochDay
+    // Description: Parses a fixed-width yyyy-MM-dd field into days since 1970-01-01.
+    // Returns INVALID if it is not a real date.
+    static int parseEpochDay(ByteBuffer buf, int start, int end) {
+        if (end - start != 10 || buf.get(start + 4) != '-' || buf.get(start + 7) != '-') {
+            return INVALID;
+        }
+        int year = digits(buf, start, 4);
+        int month = digits(buf, start + 5, 2);
+        int day = digits(buf, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return INVALID;
+        }
+        return epochDay(year, month, day);
+    }
+
+
+    // Method: epochDay
+    // Description: Same calculation as LocalDate.toEpochDay, without creating a LocalDate.
+    static int epochDay(int year, int month, int day) {
+        long total = 365L * year;
+        if (year >= 0) {
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        } else {
+            total -= year / -4 - year / -100 + year / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!Year.isLeap(year)) {
+                total--;
+            }
+        }
+        return (int) (total - DAYS_0000_TO_1970);
+    }
+
+
+    // Method: parseSecondOfDay
+    // Description: Parses a fixed-width HH:mm:ss field into seconds since midnight.
+    // Returns INVALID if it is not a valid time.
+    static int parseSecondOfDay(ByteBuffer buf, int start, int end) {
+        if (end - start != 8 || buf.get(start + 2) != ':' || buf.get(start + 5) != ':') {
+            return INVALID;
+        }
+        int hour = digits(buf, start, 2);
+        int minute = digits(buf, start + 3, 2);
+        int second = digits(buf, start + 6, 2);
+        if (hour > 23 || minute > 59 || second > 59 || hour < 0 || minute < 0 || second < 0) {
+            return INVALID;
+        }
+        return hour * 3600 + minute * 60 + second;
+    }
+
+
+    // Method: digits
+    // Description: Reads count ASCII digits as a number, or returns -1 if any byte is not a digit.
+    private static int digits(ByteBuffer buf, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+
+    // Method: indexOf
+    // Description: Finds the next occurrence of a byte between start and end, or -1.
+    static int indexOf(ByteBuffer buf, int start, int end, byte target) {
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    // Getter Methods
+    // Description: Return the statistics of the last parse.
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getBadLineCount() {
+        return badLineCount;
+    }
+
+    public long getFirstBadLine() {
+        return firstBadLine;
+    }
+
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Method: getRowsPerSecond
+    // Description: Returns the throughput of the last parse.
+    public long getRowsPerSecond() {
+        return elapsedNanos == 0 ? rowCount : rowCount * 1_000_000_000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,70 @@
+package com.pluralsight;
+
+import java.time.LocalDate;
+
+
+// Class: TransactionQuery
+// Description: The criteria of a custom search. A null or empty criterion matches everything and
+// the amount range includes both ends. A limit above zero keeps only that many rows with the largest
+// amounts (either sign), largest first. plan() turns the criteria into a QueryPlan for one ledger view.
+public class TransactionQuery {
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final String description;
+    private final String vendor;
+    private final Long minCents;
+    private final Long maxCents;
+    private final int limit;
+
+
+    // Constructor: TransactionQuery
+    // Description: Creates a query from the custom search criteria.
+    public TransactionQuery(LocalDate startDate, LocalDate endDate, String description, String vendor,
+                            Long minCents, Long maxCents, int limit) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.description = description == null || description.isEmpty() ? null : description;
+        this.vendor = vendor == null || vendor.isEmpty() ? null : vendor;
+        this.minCents = minCents;
+        this.maxCents = maxCents;
+        this.limit = Math.max(limit, 0);
+    }
+
+
+    // Method: plan
+    // Description: Plans the query against one view of the ledger. The plan can be executed many times.
+    public QueryPlan plan(LedgerView view) {
+        return new QueryPlan(this, view);
+    }
+
+
+    // Getter Methods
+    // Description: Return the criteria; missing criteria are null (or a limit of 0).
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    public Long getMinCents() {
+        return minCents;
+    }
+
+    public Long getMaxCents() {
+        return maxCents;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,218 @@
+package com.pluralsight;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+
+// Class: TransactionStore
+// Description: Holds all transactions in primitive columns instead of one object per row.
+// Each row is an index into the columns: the date as an epoch day, the time as a second of day,
+// the amount in cents, and the description and vendor as ids into string dictionaries.
+// Transaction objects are only created when a row is displayed.
+public class TransactionStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] dates;
+    private int[] times;
+    private long[] amounts;
+    private int[] descriptionIds;
+    private int[] vendorIds;
+    private int size;
+
+    private final StringDictionary descriptions;
+    private final StringDictionary vendors;
+
+
+    // Constructor: TransactionStore
+    // Description: Creates an empty store.
+    public TransactionStore() {
+        dates = new int[INITIAL_CAPACITY];
+        times = new int[INITIAL_CAPACITY];
+        amounts = new long[INITIAL_CAPACITY];
+        descriptionIds = new int[INITIAL_CAPACITY];
+        vendorIds = new int[INITIAL_CAPACITY];
+        descriptions = new StringDictionary();
+        vendors = new StringDictionary();
+    }
+
+
+    // Constructor: TransactionStore
+    // Description: Creates a read-only view of another store's rows, sharing its columns.
+    private TransactionStore(TransactionStore source) {
+        dates = source.dates;
+        times = source.times;
+        amounts = source.amounts;
+        descriptionIds = source.descriptionIds;
+        vendorIds = source.vendorIds;
+        size = source.size;
+        descriptions = source.descriptions.snapshot();
+        vendors = source.vendors.snapshot();
+    }
+
+
+    // Method: snapshot
+    // Description: Returns a read-only view of the rows added so far, for readers on other threads.
+    // Rows are never changed once added and growing replaces the columns instead of changing them,
+    // so the view stays the same while this store keeps growing. The view must not be added to.
+    public TransactionStore snapshot() {
+        return new TransactionStore(this);
+    }
+
+
+    // Method: add
+    // Description: Appends a transaction and returns its row number.
+    public int add(Transaction transaction) {
+        return add((int) transaction.getDate().toEpochDay(),
+                transaction.getTime().toSecondOfDay(),
+                transaction.getAmountCents(),
+                descriptions.intern(transaction.getDescription()),
+                vendors.intern(transaction.getVendor()));
+    }
+
+
+    // Method: add
+    // Description: Appends a row from already-encoded column values and returns its row number.
+    public int add(int epochDay, int secondOfDay, long amountCents, int descriptionId, int vendorId) {
+        if (size == dates.length) {
+            grow();
+        }
+        dates[size] = epochDay;
+        times[size] = secondOfDay;
+        amounts[size] = amountCents;
+        descriptionIds[size] = descriptionId;
+        vendorIds[size] = vendorId;
+        return size++;
+    }
+
+
+    // Method: addAll
+    // Description: Appends every row of another store, translating its dictionary ids into ours.
+    public void addAll(TransactionStore other) {
+        int[] descriptionMap = remap(other.descriptions, descriptions);
+        int[] vendorMap = remap(other.vendors, vendors);
+        for (int row = 0; row < other.size; row++) {
+            add(other.dates[row], other.times[row], other.amounts[row],
+                    descriptionMap[other.descriptionIds[row]], vendorMap[other.vendorIds[row]]);
+        }
+    }
+
+
+    // Method: get
+    // Description: Builds a Transaction object for one row, for display.
+    public Transaction get(int row) {
+        return new Transaction(LocalDate.ofEpochDay(dates[row]),
+                LocalTime.ofSecondOfDay(times[row]),
+                descriptions.get(descriptionIds[row]),
+                vendors.get(vendorIds[row]),
+                amounts[row]);
+    }
+
+
+    // Getter Methods
+    // Description: Return single column values for a row without creating a Transaction.
+    public int getEpochDay(int row) {
+        return dates[row];
+    }
+
+    public int getSecondOfDay(int row) {
+        return times[row];
+    }
+
+    public long getAmountCents(int row) {
+        return amounts[row];
+    }
+
+    public int getDescriptionId(int row) {
+        return descriptionIds[row];
+    }
+
+    public int getVendorId(int row) {
+        return vendorIds[row];
+    }
+
+    public StringDictionary getDescriptions() {
+        return descriptions;
+    }
+
+    public StringDictionary getVendors() {
+        return vendors;
+    }
+
+    public int size() {
+        return size;
+    }
+
+
+    // Method: loadColumns
+    // Description: Fills an empty store with columns read in bulk, such as from a snapshot.
+    void loadColumns(int[] dates, int[] times, long[] amounts, int[] descriptionIds, int[] vendorIds, int size) {
+        this.dates = dates;
+        this.times = times;
+        this.amounts = amounts;
+        this.descriptionIds = descriptionIds;
+        this.vendorIds = vendorIds;
+        this.size = size;
+        if (dates.length == 0) {
+            grow();
+        }
+    }
+
+
+    // Column Methods
+    // Description: Return the backing arrays, valid up to size(), for bulk writers such as snapshots.
+    int[] dateColumn() {
+        return dates;
+    }
+
+    int[] timeColumn() {
+        return times;
+    }
+
+    long[] amountColumn() {
+        return amounts;
+    }
+
+    int[] descriptionIdColumn() {
+        return descriptionIds;
+    }
+
+    int[] vendorIdColumn() {
+        return vendorIds;
+    }
+
+
+    // Method: grow
+    // Description: Doubles the capacity of every column.
+    private void grow() {
+        int capacity = Math.max(dates.length * 2, INITIAL_CAPACITY);
+        dates = Arrays.copyOf(dates, capacity);
+        times = Arrays.copyOf(times, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        descriptionIds = Arrays.copyOf(descriptionIds, capacity);
+        vendorIds = Arrays.copyOf(vendorIds, capacity);
+    }
+
+
+    // Method: lookup
+    // Description: Returns a table that turns ids of the source dictionary into ids of the target,
+    // with -1 for values the target does not have. Unlike remap, the target is only read.
+    static int[] lookup(StringDictionary source, StringDictionary target) {
+        int[] map = new int[source.size()];
+        for (int id = 0; id < map.length; id++) {
+            map[id] = target.find(source.get(id));
+        }
+        return map;
+    }
+
+
+    // Method: remap
+    // Description: Returns a table that turns ids of the source dictionary into ids of the target.
+    static int[] remap(StringDictionary source, StringDictionary target) {
+        int[] map = new int[source.size()];
+        for (int id = 0; id < map.length; id++) {
+            map[id] = target.intern(source.get(id));
+        }
+        return map;
+    }
+}
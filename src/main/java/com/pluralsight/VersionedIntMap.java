@@ -0,0 +1,99 @@
+package com.pluralsight;
+
+
+// Class: VersionedIntMap
+// Description: A map from int keys to values that can hand out read-only versions of itself in O(1).
+// The entries live in a 32-way trie of small arrays. snapshot() shares the whole trie with the
+// version it returns; after that, the first put under each node copies the nodes on its path
+// (at most seven small arrays) and later puts change those copies in place until the next snapshot.
+// A version therefore never changes, and publishing one costs O(keys changed since the last one)
+// instead of a copy of every entry.
+public class VersionedIntMap<V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    // Seven levels of five bits cover all 32 bits of a key
+    private static final int TOP_SHIFT = 30;
+
+    // Each node holds WIDTH children (or values, at the bottom level) and then the owner of the node
+    private Object[] root;
+    // Nodes owned by this token were copied since the last snapshot and may be changed in place
+    private Object owner = new Object();
+
+
+    // Constructor: VersionedIntMap
+    // Description: Creates an empty map.
+    public VersionedIntMap() {
+        root = newNode();
+    }
+
+
+    // Constructor: VersionedIntMap
+    // Description: Creates a read-only version sharing the given trie.
+    private VersionedIntMap(Object[] root) {
+        this.root = root;
+        this.owner = null;
+    }
+
+
+    // Method: snapshot
+    // Description: Returns a read-only version of the map as it is now, sharing every node with it.
+    // The version must only be read.
+    public VersionedIntMap<V> snapshot() {
+        owner = new Object();
+        return new VersionedIntMap<>(root);
+    }
+
+
+    // Method: get
+    // Description: Returns the value stored under key, or null.
+    // The cast is safe because put only stores values of type V at the bottom level.
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Object[] node = root;
+        for (int shift = TOP_SHIFT; shift > 0; shift -= BITS) {
+            node = (Object[]) node[(key >>> shift) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (V) node[key & MASK];
+    }
+
+
+    // Method: put
+    // Description: Stores a value under key, copying the nodes on its path that a version still shares.
+    public void put(int key, V value) {
+        root = owned(root);
+        Object[] node = root;
+        for (int shift = TOP_SHIFT; shift > 0; shift -= BITS) {
+            int index = (key >>> shift) & MASK;
+            Object[] child = (Object[]) node[index];
+            child = child == null ? newNode() : owned(child);
+            node[index] = child;
+            node = child;
+        }
+        node[key & MASK] = value;
+    }
+
+
+    // Method: owned
+    // Description: Returns the node itself if it was created since the last snapshot, otherwise a copy.
+    private Object[] owned(Object[] node) {
+        if (node[WIDTH] == owner) {
+            return node;
+        }
+        Object[] copy = node.clone();
+        copy[WIDTH] = owner;
+        return copy;
+    }
+
+
+    // Method: newNode
+    // Description: Returns an empty node owned by the current version.
+    private Object[] newNode() {
+        Object[] node = new Object[WIDTH + 1];
+        node[WIDTH] = owner;
+        return node;
+    }
+}